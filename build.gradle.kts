@@ -36,6 +36,9 @@ buildscript {
 
 
 
+// plain JVM modules, everything else is built as an Android project
+val jvmProjects = setOf("goose-core", "goose-jmh")
+
 allprojects {
     repositories {
         google()
@@ -43,7 +46,7 @@ allprojects {
         mavenLocal()
     }
 
-    if ((group as String).isNotEmpty()) {
+    if ((group as String).isNotEmpty() && name !in jvmProjects) {
         conFigureAndroid()
     }
 }
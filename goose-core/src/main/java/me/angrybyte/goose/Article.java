@@ -17,11 +17,13 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import me.angrybyte.goose.images.Image;
+import me.angrybyte.goose.network.HtmlBytes;
 
 /**
  * This class represents the extraction of an Article from a website
@@ -51,6 +53,11 @@ public class Article {
      */
     private String rawHtml;
 
+    /**
+     * the same html as the bytes that were downloaded, it's only turned into a string if somebody asks for it
+     */
+    private HtmlBytes rawHtmlBytes;
+
     /**
      * holds the meta keywords that would in the meta tag of the html doc
      */
@@ -87,6 +94,11 @@ public class Article {
      */
     private ArrayList<Element> movies;
 
+    /**
+     * the src of each of the movies, these stay even when the nodes are let go
+     */
+    private ArrayList<String> movieUrls = new ArrayList<>();
+
     /**
      * holds a list of tags extracted from the article
      */
@@ -94,6 +106,11 @@ public class Article {
 
     private Map<String, String> additionalData;
 
+    /**
+     * the steps that were left out because the extraction ran out of budget
+     */
+    private EnumSet<OptionalStep> skippedSteps = EnumSet.noneOf(OptionalStep.class);
+
     public String getTitle() {
         return title;
     }
@@ -175,6 +192,15 @@ public class Article {
         this.movies = movies;
     }
 
+    @SuppressWarnings("unused")
+    public ArrayList<String> getMovieUrls() {
+        return movieUrls;
+    }
+
+    public void setMovieUrls(ArrayList<String> movieUrls) {
+        this.movieUrls = movieUrls;
+    }
+
     /**
      * The unique set of tags that matched: "a[rel=tag], a[href*=/tag/]".
      *
@@ -218,13 +244,33 @@ public class Article {
         this.cleanedArticleText = cleanedArticleText;
     }
 
+    /**
+     * If the html was downloaded, it's decoded anew on every call, so better hold on to the result
+     */
     @SuppressWarnings("unused")
     public String getRawHtml() {
+        if (rawHtml == null && rawHtmlBytes != null) {
+            return rawHtmlBytes.decode();
+        }
         return rawHtml;
     }
 
     public void setRawHtml(String rawHtml) {
         this.rawHtml = rawHtml;
+        this.rawHtmlBytes = null;
+    }
+
+    /**
+     * @return the html as it was downloaded, or <code>null</code> if it was passed in as a string
+     */
+    @SuppressWarnings("unused")
+    public HtmlBytes getRawHtmlBytes() {
+        return rawHtmlBytes;
+    }
+
+    public void setRawHtmlBytes(HtmlBytes rawHtmlBytes) {
+        this.rawHtmlBytes = rawHtmlBytes;
+        this.rawHtml = null;
     }
 
     /**
@@ -243,4 +289,18 @@ public class Article {
         this.additionalData = additionalData;
     }
 
+    /**
+     * The steps that were left out because the {@link ExtractionBudget} ran out. If this is empty, the extraction ran to the end.
+     *
+     * @return the skipped steps, never <code>null</code>
+     */
+    @SuppressWarnings("unused")
+    public EnumSet<OptionalStep> getSkippedSteps() {
+        return skippedSteps;
+    }
+
+    public void addSkippedStep(OptionalStep step) {
+        skippedSteps.add(step);
+    }
+
 }
@@ -0,0 +1,260 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Element;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import me.angrybyte.goose.cache.ArticleCache;
+import me.angrybyte.goose.cache.ImageCache;
+import me.angrybyte.goose.extractors.AdditionalDataExtractor;
+import me.angrybyte.goose.extractors.PublishDateExtractor;
+import me.angrybyte.goose.rules.RulePacks;
+
+/**
+ * Worker configuration
+ */
+public class Configuration {
+
+    /**
+     * What's the minimum bytes for an image we'd accept is, a lot of times we want to filter out the author's little images in the
+     * beginning of the article
+     */
+    private int minBytesForImages = 4500;
+
+    /**
+     * Where images are stored
+     */
+    private final String cacheDirectory;
+
+    /**
+     * Set this to false if you don't care about getting images
+     */
+    private boolean enableImageFetching = true;
+
+    public Configuration(String cacheDirectory) {
+        super();
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    private PublishDateExtractor publishDateExtractor = new PublishDateExtractor() {
+        @Override
+        public Date extract(Element rootElement) {
+            return null;
+        }
+    };
+
+    public PublishDateExtractor getPublishDateExtractor() {
+        return publishDateExtractor;
+    }
+
+    @SuppressWarnings("unused")
+    public void setPublishDateExtractor(PublishDateExtractor extractor) throws IllegalArgumentException {
+        if (extractor == null)
+            throw new IllegalArgumentException("extractor must not be null!");
+        this.publishDateExtractor = extractor;
+    }
+
+    private AdditionalDataExtractor additionalDataExtractor = new AdditionalDataExtractor() {
+        @Override
+        public Map<String, String> extract(Element rootElement) {
+            return null;
+        }
+    };
+
+    public AdditionalDataExtractor getAdditionalDataExtractor() {
+        return additionalDataExtractor;
+    }
+
+    @SuppressWarnings("unused")
+    public void setAdditionalDataExtractor(AdditionalDataExtractor extractor) {
+        additionalDataExtractor = extractor;
+    }
+
+    public int getMinBytesForImages() {
+        return minBytesForImages;
+    }
+
+    @SuppressWarnings("unused")
+    public void setMinBytesForImages(int minBytesForImages) {
+        this.minBytesForImages = minBytesForImages;
+    }
+
+    public boolean isEnableImageFetching() {
+        return enableImageFetching;
+    }
+
+    @SuppressWarnings("unused")
+    public void setEnableImageFetching(boolean enableImageFetching) {
+        this.enableImageFetching = enableImageFetching;
+    }
+
+    /**
+     * Caps on the time and work of each extraction, unlimited unless it's changed
+     */
+    private ExtractionBudget budget = new ExtractionBudget();
+
+    public ExtractionBudget getBudget() {
+        return budget;
+    }
+
+    @SuppressWarnings("unused")
+    public void setBudget(ExtractionBudget budget) throws IllegalArgumentException {
+        if (budget == null)
+            throw new IllegalArgumentException("budget must not be null!");
+        this.budget = budget;
+    }
+
+    /**
+     * Remembers where the content is on each domain, <code>null</code> to always look for it from scratch
+     */
+    private DomainProfiles domainProfiles;
+
+    public DomainProfiles getDomainProfiles() {
+        return domainProfiles;
+    }
+
+    @SuppressWarnings("unused")
+    public void setDomainProfiles(DomainProfiles domainProfiles) {
+        this.domainProfiles = domainProfiles;
+    }
+
+    /**
+     * Cuts the scripts, styles and comments out of the html before it's parsed, <code>null</code> to parse all of it. Pruning makes the
+     * documents a lot smaller, but whatever reads the scripts (an {@link me.angrybyte.goose.extractors.AdditionalDataExtractor} for example)
+     * won't find them.
+     */
+    private HtmlPruner htmlPruner;
+
+    public HtmlPruner getHtmlPruner() {
+        return htmlPruner;
+    }
+
+    @SuppressWarnings("unused")
+    public void setHtmlPruner(HtmlPruner htmlPruner) {
+        this.htmlPruner = htmlPruner;
+    }
+
+    /**
+     * The site specific rules for cleaning the pages and finding their images and content. The default cleaner of a {@link ContentExtractor}
+     * picks these up when the extractor is created.
+     */
+    private RulePacks rulePacks = new RulePacks();
+
+    public RulePacks getRulePacks() {
+        return rulePacks;
+    }
+
+    @SuppressWarnings("unused")
+    public void setRulePacks(RulePacks rulePacks) throws IllegalArgumentException {
+        if (rulePacks == null)
+            throw new IllegalArgumentException("rulePacks must not be null!");
+        this.rulePacks = rulePacks;
+    }
+
+    /**
+     * Remembers the articles of pages we've seen before, <code>null</code> to always extract from scratch
+     */
+    private ArticleCache articleCache;
+
+    public ArticleCache getArticleCache() {
+        return articleCache;
+    }
+
+    @SuppressWarnings("unused")
+    public void setArticleCache(ArticleCache articleCache) {
+        this.articleCache = articleCache;
+    }
+
+    /**
+     * Remembers the images we've looked at before so they're not requested again, <code>null</code> to always request them
+     */
+    private ImageCache imageCache;
+
+    public ImageCache getImageCache() {
+        return imageCache;
+    }
+
+    @SuppressWarnings("unused")
+    public void setImageCache(ImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * How much of the page the finished articles hold on to
+     */
+    private ResultMode resultMode = ResultMode.FULL;
+
+    public ResultMode getResultMode() {
+        return resultMode;
+    }
+
+    @SuppressWarnings("unused")
+    public void setResultMode(ResultMode resultMode) throws IllegalArgumentException {
+        if (resultMode == null)
+            throw new IllegalArgumentException("resultMode must not be null!");
+        this.resultMode = resultMode;
+    }
+
+    /**
+     * Gets the timings and sizes of every extraction, <code>null</code> if nobody's listening
+     */
+    private ExtractionListener extractionListener;
+
+    public ExtractionListener getExtractionListener() {
+        return extractionListener;
+    }
+
+    @SuppressWarnings("unused")
+    public void setExtractionListener(ExtractionListener listener) {
+        this.extractionListener = listener;
+    }
+
+    /**
+     * How many images of one article are probed at the same time while looking for the top image
+     */
+    private int maxImageProbes = 4;
+
+    public int getMaxImageProbes() {
+        return maxImageProbes;
+    }
+
+    @SuppressWarnings("unused")
+    public void setMaxImageProbes(int maxImageProbes) throws IllegalArgumentException {
+        if (maxImageProbes < 1)
+            throw new IllegalArgumentException("maxImageProbes must be positive!");
+        this.maxImageProbes = maxImageProbes;
+    }
+
+    /**
+     * Runs the image probes of an article beyond the first one, which stays on the extraction's own thread. <code>null</code> to use a
+     * shared pool of daemon threads.
+     */
+    private Executor imageExecutor;
+
+    public Executor getImageExecutor() {
+        return imageExecutor;
+    }
+
+    @SuppressWarnings("unused")
+    public void setImageExecutor(Executor imageExecutor) {
+        this.imageExecutor = imageExecutor;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+}
@@ -0,0 +1,1192 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Elements;
+import org.jsoup.select.NodeVisitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import io.reactivex.Maybe;
+import io.reactivex.MaybeSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import me.angrybyte.goose.cache.ArticleCache;
+import me.angrybyte.goose.cleaners.DefaultDocumentCleaner;
+import me.angrybyte.goose.cleaners.DocumentCleaner;
+import me.angrybyte.goose.images.BestImageGuesser;
+import me.angrybyte.goose.images.Image;
+import me.angrybyte.goose.images.ImageExtractor;
+import me.angrybyte.goose.network.GooseDownloader;
+import me.angrybyte.goose.network.HtmlBytes;
+import me.angrybyte.goose.network.MaxBytesException;
+import me.angrybyte.goose.network.NotHtmlException;
+import me.angrybyte.goose.outputformatters.DefaultOutputFormatter;
+import me.angrybyte.goose.outputformatters.Entities;
+import me.angrybyte.goose.texthelpers.NodeTextStats;
+import me.angrybyte.goose.texthelpers.ReplaceSequence;
+import me.angrybyte.goose.texthelpers.StringReplacement;
+import me.angrybyte.goose.texthelpers.StringSplitter;
+import me.angrybyte.goose.texthelpers.string;
+
+/**
+ * User: jim plush Date: 12/16/10 a lot of work in this class is based on Arc90's readability code that does content extraction in JS I
+ * wasn't able to find a good server side codebase to achieve the same so I started with their base ideas and then built additional metrics
+ * on top of it such as looking for clusters of english stop words. Gravity was doing 30+ million links per day with this codebase across a
+ * series of crawling servers for a project and it held up well. Our current port is slightly different than this one but I'm working to
+ * align them so the goose project gets the love as we continue to move forward.
+ * <p/>
+ * Cougar: God dammit, Mustang! This is Ghost Rider 117. This bogey is all over me. He's got missile lock on me. Do I have permission to
+ * fire? Stinger: Do not fire until fired upon...
+ */
+
+public class ContentExtractor {
+
+    private static final StringReplacement MOTLEY_REPLACEMENT = StringReplacement.compile("&#65533;", string.empty);
+
+    private static final StringReplacement ESCAPED_FRAGMENT_REPLACEMENT = StringReplacement.compile("#!", "?_escaped_fragment_=");
+
+    private static final ReplaceSequence TITLE_REPLACEMENTS = ReplaceSequence.create("&raquo;").append("»");
+    private static final StringSplitter PIPE_SPLITTER = new StringSplitter("\\|");
+    private static final StringSplitter DASH_SPLITTER = new StringSplitter(" - ");
+    private static final StringSplitter ARROWS_SPLITTER = new StringSplitter("»");
+    private static final StringSplitter COLON_SPLITTER = new StringSplitter(":");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // a learned top node that scores less than this is probably the wrong one
+    private static final int MIN_LEARNED_SCORE = 20;
+
+
+    private final Configuration config;
+
+    // sets the default cleaner class to prep the HTML for parsing, the cleaner keeps no state so all extractions can share it
+    private final DocumentCleaner documentCleaner;
+
+    /**
+     * overloaded to accept a custom configuration object
+     */
+    public ContentExtractor(Configuration config) {
+        this(config, new DefaultDocumentCleaner(config.getRulePacks()));
+    }
+
+    /**
+     * @param config          the configuration to use for every extraction
+     * @param documentCleaner a cleaner used to prep the HTML for parsing, it's shared between threads so it must not keep any state
+     */
+    public ContentExtractor(Configuration config, DocumentCleaner documentCleaner) {
+        this.config = config;
+        this.documentCleaner = documentCleaner;
+    }
+
+    /**
+     * @param urlToCrawl The url you want to extract the text from
+     * @param html       If you already have the raw html handy you can pass it here to avoid a network call.
+     * @param forWebView true to preserve useful html tags in topNode
+     */
+    public Article extractContent(String urlToCrawl, String html, boolean forWebView) {
+        return performExtraction(urlToCrawl, html, forWebView);
+    }
+
+    /**
+     * @param urlToCrawl The url you want to extract the text from, makes a network call
+     * @param forWebView true to preserve useful html tags in topNode
+     */
+    public Article extractContent(String urlToCrawl, boolean forWebView) {
+        return performExtraction(urlToCrawl, null, forWebView);
+    }
+
+    /**
+     * Reads the html from the stream as bytes and works out its charset from the byte order mark or a meta tag, so there's never a second
+     * copy of the page around as a string. Same as with a download, the page must not be bigger than {@link GooseDownloader#MAX_BYTES}.
+     *
+     * @param urlToCrawl The url the html came from
+     * @param html       The raw html of the page, it's read to the end but not closed
+     * @param forWebView true to preserve useful html tags in topNode
+     */
+    public Article extractContent(String urlToCrawl, InputStream html, boolean forWebView) {
+        ExtractionContext context = createContext(urlToCrawl, null, forWebView);
+        context.setHtmlStream(html);
+        return performExtraction(context);
+    }
+
+    /**
+     * Fills in just the title, meta description, meta keywords, canonical link, domain, publish date and the open graph image of the article.
+     * Only the head of the page is downloaded and parsed, so this costs a small part of a full extraction. The article has no text, top
+     * node, tags or movies.
+     *
+     * @param urlToCrawl The url you want the metadata of, makes a network call
+     */
+    @SuppressWarnings("unused")
+    public Article extractMetadata(String urlToCrawl) {
+        return extractMetadata(urlToCrawl, (String) null);
+    }
+
+    /**
+     * @param urlToCrawl The url you want the metadata of
+     * @param html       If you already have the raw html handy you can pass it here to avoid a network call, only its head is parsed
+     * @see #extractMetadata(String)
+     */
+    public Article extractMetadata(String urlToCrawl, String html) {
+        ExtractionContext context = createContext(urlToCrawl, html, false);
+        context.setMetadataOnly(true);
+        return performExtraction(context);
+    }
+
+    /**
+     * @param urlToCrawl The url the html came from
+     * @param html       The raw html of the page, it's read only until the head is over and it's not closed
+     * @see #extractMetadata(String)
+     */
+    @SuppressWarnings("unused")
+    public Article extractMetadata(String urlToCrawl, InputStream html) {
+        ExtractionContext context = createContext(urlToCrawl, null, false);
+        context.setMetadataOnly(true);
+        context.setHtmlStream(html);
+        return performExtraction(context);
+    }
+
+    /**
+     * Same as {@link #extractContent(String, String, boolean)}, but the whole extraction runs as a single task on the given executor. Since the
+     * download and the image probes block on sockets, this works best with an executor that doesn't run out of threads while they wait.
+     * Nothing runs until the returned {@link Maybe} is subscribed to, and the extraction runs only once no matter how many subscribers it
+     * gets.
+     *
+     * @param urlToCrawl The url you want to extract the text from
+     * @param html       If you already have the raw html handy you can pass it here to avoid a network call.
+     * @param forWebView true to preserve useful html tags in topNode
+     * @param executor   runs the extraction
+     * @return emits the article, or completes empty if the html couldn't be downloaded
+     * @throws IllegalArgumentException right away if the url is malformed
+     */
+    public Maybe<Article> extractContentAsync(String urlToCrawl, String html, boolean forWebView, Executor executor) {
+        final ExtractionContext context = createContext(urlToCrawl, html, forWebView);
+        return Maybe.fromCallable(new Callable<Article>() {
+            @Override
+            public Article call() {
+                return performExtraction(context);
+            }
+        }).subscribeOn(Schedulers.from(executor)).cache();
+    }
+
+    /**
+     * @param urlToCrawl The url you want to extract the text from, makes a network call
+     * @param forWebView true to preserve useful html tags in topNode
+     * @param executor   runs the extraction
+     * @see #extractContentAsync(String, String, boolean, Executor)
+     */
+    public Maybe<Article> extractContentAsync(String urlToCrawl, boolean forWebView, Executor executor) {
+        return extractContentAsync(urlToCrawl, null, forWebView, executor);
+    }
+
+    /**
+     * Same as {@link #extractContentAsync(String, String, boolean, Executor)}, but every {@link ExtractionStage} is a separate task: the ones
+     * that block on the network go to <code>ioExecutor</code> and the rest go to <code>cpuExecutor</code>. That way a small pool sized to the
+     * cores does the parsing and scoring while a bigger one waits on the sockets.
+     *
+     * @param urlToCrawl  The url you want to extract the text from
+     * @param html        If you already have the raw html handy you can pass it here to avoid a network call, otherwise <code>null</code>
+     * @param forWebView  true to preserve useful html tags in topNode
+     * @param ioExecutor  runs the download and the image probes
+     * @param cpuExecutor runs everything else
+     * @throws IllegalArgumentException right away if the url is malformed
+     */
+    public Maybe<Article> extractContentAsync(String urlToCrawl, String html, boolean forWebView, Executor ioExecutor, Executor cpuExecutor) {
+        Scheduler ioScheduler = Schedulers.from(ioExecutor);
+        Scheduler cpuScheduler = Schedulers.from(cpuExecutor);
+
+        Maybe<ExtractionContext> maybe = Maybe.just(createContext(urlToCrawl, html, forWebView));
+        for (final ExtractionStage stage : ExtractionStage.values()) {
+            Scheduler scheduler = stage.isBlocking() ? ioScheduler : cpuScheduler;
+            maybe = maybe.observeOn(scheduler).map(new Function<ExtractionContext, ExtractionContext>() {
+                @Override
+                public ExtractionContext apply(ExtractionContext context) {
+                    runStage(stage, context);
+                    return context;
+                }
+            });
+        }
+
+        return maybe.flatMap(new Function<ExtractionContext, MaybeSource<Article>>() {
+            @Override
+            public MaybeSource<Article> apply(ExtractionContext context) {
+                Article article = finish(context);
+                return article == null ? Maybe.<Article>empty() : Maybe.just(article);
+            }
+        }).cache();
+    }
+
+    private Article performExtraction(String urlToCrawl, String rawHtml, boolean forWebView) {
+        return performExtraction(createContext(urlToCrawl, rawHtml, forWebView));
+    }
+
+    private Article performExtraction(ExtractionContext context) {
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            runStage(stage, context);
+        }
+        return finish(context);
+    }
+
+    /**
+     * Runs the stage unless an earlier one already failed, the article came from the cache or the stage isn't needed for the metadata we're
+     * after. Any exception it throws is recorded on the context.
+     */
+    void runStage(ExtractionStage stage, ExtractionContext context) {
+        if (context.getError() != null || context.getCachedArticle() != null || context.isMetadataOnly() && !stage.isMetadata()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Exception error = null;
+        try {
+            stage.run(this, context);
+        } catch (Exception e) {
+            error = e;
+            context.fail(stage, e);
+        }
+
+        long nanos = System.nanoTime() - start;
+        context.getMetrics().recordStage(stage, nanos);
+        ExtractionListener listener = config.getExtractionListener();
+        if (listener != null) {
+            listener.onStageFinished(context.getUrl(), stage, nanos, error);
+        }
+    }
+
+    /**
+     * Cleans up after the extraction, whether it went well or not
+     *
+     * @return <code>null</code> if we never got the html, or the article with whatever we managed to extract
+     */
+    Article finish(ExtractionContext context) {
+        ExtractionListener listener = config.getExtractionListener();
+        if (listener != null) {
+            listener.onExtractionFinished(context.getUrl(), context.getMetrics());
+        }
+
+        if (!context.hasHtml()) {
+            return null;
+        }
+
+        if (context.getCachedArticle() != null) {
+            return context.getCachedArticle();
+        }
+
+        // only complete articles are worth keeping, the next try might have more budget or better luck
+        Article article = context.getArticle();
+        ArticleCache cache = config.getArticleCache();
+        if (cache != null && context.getCacheKey() != null && context.getError() == null && article.getSkippedSteps().isEmpty()) {
+            cache.put(context.getCacheKey(), article);
+        }
+
+        // let go of as much of the page as we were told to
+        config.getResultMode().apply(article);
+        return article;
+    }
+
+    /**
+     * Prepares a new context for the given url, this is where each extraction starts
+     *
+     * @param urlToCrawl The url you want to extract the text from
+     * @param rawHtml    The raw html of the page, or <code>null</code> if it should be downloaded
+     * @param forWebView true to preserve useful html tags in topNode
+     * @return a fresh context for one extraction
+     *
+     * @throws IllegalArgumentException if the url is not valid
+     */
+    ExtractionContext createContext(String urlToCrawl, String rawHtml, boolean forWebView) {
+        urlToCrawl = getUrlToCrawl(urlToCrawl);
+        ExtractionContext context;
+        try {
+            new URL(urlToCrawl);
+            context = new ExtractionContext(urlToCrawl, md5(urlToCrawl), forWebView);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid URL Passed in: " + urlToCrawl, e);
+        }
+        context.setRawHtml(rawHtml);
+        context.setBudget(config.getBudget());
+        return context;
+    }
+
+    /**
+     * Stage 1: fetches the html of the page from the network, or reads it from the stream we were given. For the metadata we only need the
+     * head of the page, so the rest is never read.
+     */
+    void download(ExtractionContext context) throws IOException, MaxBytesException, NotHtmlException {
+        boolean headOnly = context.isMetadataOnly();
+        if (context.getHtmlStream() != null) {
+            InputStream stream = context.getHtmlStream();
+            if (headOnly) {
+                context.setHtmlBytes(HtmlBytes.readHead(stream, null, GooseDownloader.MAX_BYTES));
+            } else {
+                context.setHtmlBytes(HtmlBytes.read(stream, null, GooseDownloader.MAX_BYTES));
+            }
+        } else {
+            context.getMetrics().recordHttpRequest();
+            if (headOnly) {
+                context.setHtmlBytes(GooseDownloader.getHtmlHeadBytes(context.getUrl(), true));
+            } else {
+                context.setHtmlBytes(GooseDownloader.getHtmlBytes(context.getUrl(), true));
+            }
+        }
+    }
+
+    /**
+     * Stage 2: looks the page up in the article cache, by its url and a hash of its html. If it's there, that's the result and the other
+     * stages are skipped.
+     */
+    void lookupCache(ExtractionContext context) {
+        ArticleCache cache = config.getArticleCache();
+        if (cache == null) {
+            return;
+        }
+
+        MessageDigest digest = md5Digest();
+        HtmlBytes htmlBytes = context.getHtmlBytes();
+        if (htmlBytes != null) {
+            htmlBytes.digest(digest);
+        } else {
+            digest.update(context.getRawHtml().getBytes(UTF_8));
+        }
+
+        String key = md5(normalizeUrl(context.getUrl())) + "-" + bytesToLowerCaseHex(digest.digest());
+        context.setCacheKey(key);
+        Article cached = cache.get(key);
+        if (cached != null) {
+            context.setCachedArticle(cached);
+        }
+    }
+
+    /**
+     * Stage 3: parses the html
+     */
+    void parse(ExtractionContext context) {
+        Article article = context.getArticle();
+        ExtractionMetrics metrics = context.getMetrics();
+        Document doc;
+
+        HtmlBytes htmlBytes = context.getHtmlBytes();
+        if (htmlBytes != null) {
+            article.setRawHtmlBytes(htmlBytes);
+            doc = new ParseWrapper().parse(htmlBytes, context.getUrl(), config.getHtmlPruner());
+            metrics.setHtmlBytes(htmlBytes.length());
+        } else {
+            String html = context.getRawHtml();
+            article.setRawHtml(html);
+            if (context.isMetadataOnly()) {
+                html = html.substring(0, findHeadEnd(html));
+            }
+            doc = new ParseWrapper().parse(html, context.getUrl(), config.getHtmlPruner());
+            metrics.setHtmlBytes(html.length());
+        }
+
+        context.setDocument(doc);
+        metrics.setDomNodeCount(countElements(doc));
+    }
+
+    /**
+     * Stage 4: runs the extractors that want to see the document before it's cleaned up
+     */
+    void runExtractors(ExtractionContext context) {
+        Article article = context.getArticle();
+        Document doc = context.getDocument();
+
+        // before we cleanse, provide consumers with an opportunity to extract the publish date
+        article.setPublishDate(config.getPublishDateExtractor().extract(doc));
+
+        // now allow for any additional data to be extracted
+        article.setAdditionalData(config.getAdditionalDataExtractor().extract(doc));
+
+        // one walk picks up the title, the meta tags and the text nodes of any <a ... rel="tag">Tag Name</a> elements
+        PageMetadata metadata = PageMetadata.collect(doc);
+        context.setPageMetadata(metadata);
+        article.setTags(metadata.getTags());
+    }
+
+    /**
+     * Stage 5: performs a nice deep cleansing of the document and fills in the meta data that was collected before it. When the meta data is
+     * all we're after there's nothing to clean, but the open graph image has to stand in for the top image.
+     */
+    void clean(ExtractionContext context) {
+        Article article = context.getArticle();
+        if (!context.isMetadataOnly()) {
+            context.setDocument(documentCleaner.clean(context.getDocument()));
+        }
+
+        PageMetadata metadata = context.getPageMetadata();
+        article.setTitle(getTitle(metadata.getTitle()));
+        article.setMetaDescription(trimToEmpty(metadata.getDescription()));
+        article.setMetaKeywords(trimToEmpty(metadata.getKeywords()));
+        article.setCanonicalLink(getCanonicalLink(metadata, context.getUrl()));
+        article.setDomain(article.getCanonicalLink());
+
+        if (context.isMetadataOnly()) {
+            article.setTopImage(getOpenGraphImage(metadata, context.getUrl()));
+        }
+    }
+
+    /**
+     * Stage 6: finds the node that holds the content of the article
+     */
+    void cluster(ExtractionContext context) {
+        Article article = context.getArticle();
+        context.setTextStats(NodeTextStats.compute(context.getDocument()));
+
+        // the site's rules might say where the content is, if not pages from a domain we've seen before usually have it in the same place
+        DomainProfiles profiles = config.getDomainProfiles();
+        Element topNode = findKnownTopNode(context);
+        if (topNode == null && profiles != null) {
+            topNode = findLearnedTopNode(context, profiles);
+        }
+        if (topNode == null) {
+            topNode = calculateBestNodeBasedOnClustering(context);
+            if (profiles != null && topNode != null) {
+                profiles.learn(getDomain(context.getUrl()), topNode);
+            }
+        }
+        article.setTopNode(topNode);
+        context.getMetrics().setCandidateNodeCount(context.getScores().size());
+
+        if (article.getTopNode() != null && context.canRun(OptionalStep.VIDEOS)) {
+            // extract any movie embeds out from our main article content
+            ArrayList<Element> movies = extractVideos(article.getTopNode());
+            ArrayList<String> movieUrls = new ArrayList<>(movies.size());
+            for (Element movie : movies) {
+                movieUrls.add(movie.attr("src"));
+            }
+            article.setMovies(movies);
+            article.setMovieUrls(movieUrls);
+        }
+    }
+
+    /**
+     * Stage 7: picks the best image around the content, this one goes to the network when image fetching is enabled
+     */
+    void extractImages(ExtractionContext context) {
+        Article article = context.getArticle();
+        if (article.getTopNode() != null && config.isEnableImageFetching() && context.canRun(OptionalStep.IMAGES)) {
+            ImageExtractor imageExtractor = new BestImageGuesser(config, context);
+            article.setTopImage(imageExtractor.getBestImage(context.getDocument(), article.getTopNode()));
+        }
+    }
+
+    /**
+     * Stage 8: grabs the siblings of the top node and removes the high link density elements from it
+     */
+    void cleanup(ExtractionContext context) {
+        Article article = context.getArticle();
+        if (article.getTopNode() != null) {
+            cleanupNode(article.getTopNode(), context);
+        }
+    }
+
+    /**
+     * Stage 9: formats the text of the top node for output to the user
+     */
+    void format(ExtractionContext context) {
+        Article article = context.getArticle();
+        if (article.getTopNode() == null) {
+            return;
+        }
+
+        // once we have our topNode then we want to format that guy for output to the user
+        DefaultOutputFormatter outputFormatter = new DefaultOutputFormatter();
+
+        // if forWebView is enabled, then process topNode such that necessary html tags are not removed.
+        if (context.isForWebView())
+            article.setCleanedArticleText(outputFormatter.getFormattedTextForWebView(article.getTopNode(), context.getScores()));
+        else
+            article.setCleanedArticleText(outputFormatter.getFormattedText(article.getTopNode(), context.getScores()));
+    }
+
+    private static int countElements(Document doc) {
+        final int[] count = new int[1];
+        doc.traverse(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof Element) {
+                    count[0]++;
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {}
+        });
+        return count[0];
+    }
+
+    /**
+     * Return a string of 32 lower case hex characters.
+     *
+     * @return a string of 32 hex characters
+     */
+    private static String md5(String input) {
+        MessageDigest md = md5Digest();
+        md.update(input.getBytes());
+        byte[] output = md.digest();
+        return bytesToLowerCaseHex(output);
+    }
+
+    private static MessageDigest md5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Lower cases the scheme and the host, drops the default port and the fragment, so different spellings of one page share a cache entry
+     */
+    private static String normalizeUrl(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return url;
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ENGLISH);
+        StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ENGLISH));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            normalized.append(':').append(port);
+        }
+        normalized.append(string.isNullOrEmpty(uri.getRawPath()) ? "/" : uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            normalized.append('?').append(uri.getRawQuery());
+        }
+        return normalized.toString();
+    }
+
+    private static String bytesToLowerCaseHex(byte[] data) {
+        StringBuilder buf = new StringBuilder();
+        // noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < data.length; i++) {
+            int halfByte = (data[i] >>> 4) & 0x0F;
+            int twoHalves = 0;
+            do {
+                if ((0 <= halfByte) && (halfByte <= 9)) {
+                    buf.append((char) ('0' + halfByte));
+                } else {
+                    buf.append((char) ('a' + (halfByte - 10)));
+                }
+                halfByte = data[i] & 0x0F;
+            } while (twoHalves++ < 1);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Same as {@link HtmlBytes#readHead(InputStream, String, int)}, but for html we already have as a string
+     *
+     * @return where the first <code>&lt;/head</code> or <code>&lt;body</code> tag starts, or the length of the html if there's none
+     */
+    private static int findHeadEnd(String html) {
+        int length = html.length();
+        for (int i = html.indexOf('<'); i >= 0; i = html.indexOf('<', i + 1)) {
+            int end;
+            if (html.regionMatches(true, i + 1, "/head", 0, 5)) {
+                end = i + 6;
+            } else if (html.regionMatches(true, i + 1, "body", 0, 4)) {
+                end = i + 5;
+            } else {
+                continue;
+            }
+            if (end == length || !isAsciiLetter(html.charAt(end))) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    // used for gawker type ajax sites with pound sites
+    private String getUrlToCrawl(String urlToCrawl) {
+        String finalURL;
+        if (urlToCrawl.contains("#!")) {
+            finalURL = ESCAPED_FRAGMENT_REPLACEMENT.replaceAll(urlToCrawl);
+        } else {
+            finalURL = urlToCrawl;
+        }
+
+        return finalURL;
+    }
+
+    /**
+     * Attempts to grab titles from the html pages, lots of sites use different delimiters for titles so we'll try and do our best guess.
+     */
+    private String getTitle(String titleText) {
+        String title = string.empty;
+
+        try {
+
+            if (string.isNullOrEmpty(titleText))
+                return string.empty;
+
+            boolean usedDelimiter = false;
+
+            if (titleText.contains("|")) {
+                titleText = doTitleSplits(titleText, PIPE_SPLITTER);
+                usedDelimiter = true;
+            }
+
+            if (!usedDelimiter && titleText.contains("-")) {
+                titleText = doTitleSplits(titleText, DASH_SPLITTER);
+                usedDelimiter = true;
+            }
+            if (!usedDelimiter && titleText.contains("»")) {
+                titleText = doTitleSplits(titleText, ARROWS_SPLITTER);
+                usedDelimiter = true;
+            }
+
+            if (!usedDelimiter && titleText.contains(":")) {
+                titleText = doTitleSplits(titleText, COLON_SPLITTER);
+            }
+
+            // encode unicode chars
+            title = escapeHtml(titleText);
+
+            // this is a hack until I can fix this.. weird motely crue error with
+            // http://money.cnn.com/2010/10/25/news/companies/motley_crue_bp.fortune/index.htm?section=money_latest
+            title = MOTLEY_REPLACEMENT.replaceAll(title);
+        } catch (NullPointerException ignored) {
+        }
+
+        return title;
+    }
+
+    /**
+     * <p>
+     * Escapes the characters in a <code>String</code> using HTML entities.
+     * </p>
+     * <p/>
+     * <p>
+     * For example:
+     * </p>
+     * <p>
+     * <code>"bread" & "butter"</code>
+     * </p>
+     * becomes:
+     * <p>
+     * <code>&amp;quot;bread&amp;quot; &amp;amp; &amp;quot;butter&amp;quot;</code>.
+     * </p>
+     * <p/>
+     * <p>
+     * Supports all known HTML 4.0 entities, including funky accents.
+     * </p>
+     *
+     * @param str the <code>String</code> to escape, may be null
+     * @return a new escaped <code>String</code>, <code>null</code> if null string input
+     *
+     * @see </br>
+     * <a href="http://hotwired.lycos.com/webmonkey/reference/special_characters/">ISO Entities</a>
+     * @see </br>
+     * <a href="http://www.w3.org/TR/REC-html32#latin1">HTML 3.2 Character Entities for ISO Latin-1</a>
+     * @see </br>
+     * <a href="http://www.w3.org/TR/REC-html40/sgml/entities.html">HTML 4.0 Character entity references</a>
+     * @see </br>
+     * <a href="http://www.w3.org/TR/html401/charset.html#h-5.3">HTML 4.01 Character References</a>
+     * @see </br>
+     * <a href="http://www.w3.org/TR/html401/charset.html#code-position">HTML 4.01 Code positions</a>
+     **/
+    public static String escapeHtml(String str) {
+        if (str == null) {
+            return null;
+        }
+        //todo: add a version that takes a Writer
+        //todo: rewrite underlying method to use a Writer instead of a StringBuffer
+        return Entities.HTML40.escape(str);
+    }
+
+    /**
+     * Based on a delimiter in the title take the longest piece or do some custom logic based on the site
+     */
+    private String doTitleSplits(String title, StringSplitter splitter) {
+        int largetTextLen = 0;
+        int largeTextIndex = 0;
+
+        String[] titlePieces = splitter.split(title);
+
+        // take the largest split
+        for (int i = 0; i < titlePieces.length; i++) {
+            String current = titlePieces[i];
+            if (current.length() > largetTextLen) {
+                largetTextLen = current.length();
+                largeTextIndex = i;
+            }
+        }
+
+        return TITLE_REPLACEMENTS.replaceAll(titlePieces[largeTextIndex]).trim();
+    }
+
+    private static String trimToEmpty(String value) {
+        return string.isNullOrEmpty(value) ? string.empty : value.trim();
+    }
+
+    /**
+     * @return the image from the <code>og:image</code> meta tag, with its url resolved against the page, or <code>null</code> if there's none
+     */
+    private Image getOpenGraphImage(PageMetadata metadata, String baseUrl) {
+        String src = trimToEmpty(metadata.getOpenGraphImage());
+        if (src.isEmpty()) {
+            return null;
+        }
+
+        try {
+            src = new URL(new URL(baseUrl), src).toString();
+        } catch (MalformedURLException ignored) {
+        }
+
+        Image image = new Image();
+        image.setImageSrc(src);
+        image.setImageExtractionType("opengraph");
+        image.setConfidenceScore(100);
+        return image;
+    }
+
+    /**
+     * If the article has meta canonical link set in the url
+     */
+    private String getCanonicalLink(PageMetadata metadata, String baseUrl) {
+        String href = metadata.getCanonicalLink();
+        return href == null ? baseUrl : trimToEmpty(href);
+    }
+
+    @SuppressWarnings("unused")
+    private String getDomain(String canonicalLink) {
+        try {
+            return new URL(canonicalLink).getHost();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * We're going to start looking for where the clusters of paragraphs are. We'll score a cluster based on the number of stopwords and the
+     * number of consecutive paragraphs together, which should form the cluster of text that this node is around also store on how high up
+     * the paragraphs are, comments are usually at the bottom and should get a lower score
+     */
+    private Element calculateBestNodeBasedOnClustering(ExtractionContext context) {
+        // grab all the paragraph elements on the page to start to inspect the likely hood of them being good peeps
+        Set<Element> parentNodes = scoreNodes(getNodesToCheck(context.getDocument()), context);
+        return pickTopNode(parentNodes, context.getScores());
+    }
+
+    /**
+     * @return the parent node who scored the highest, on a tie the one that was scored first
+     */
+    private static Element pickTopNode(Set<Element> parentNodes, NodeScores scores) {
+        Element topNode = null;
+        int topNodeScore = 0;
+        for (Element e : parentNodes) {
+            int score = scores.getScore(e);
+            if (score > topNodeScore) {
+                topNode = e;
+                topNodeScore = score;
+            }
+
+            if (topNode == null) {
+                topNode = e;
+            }
+        }
+
+        return topNode;
+    }
+
+    /**
+     * Looks for the node that the site's rules say holds the content. The paragraphs inside it are scored like the clustering would score
+     * them, so the later stages have something to work with, but the rules have the last word.
+     *
+     * @return the known top node, or <code>null</code> if the rules don't know it or it has no text
+     */
+    private Element findKnownTopNode(ExtractionContext context) {
+        Element known = config.getRulePacks().forUrl(context.getUrl()).findKnownContent(context.getDocument());
+        if (known == null || context.getTextStats().getTextLength(known) == 0) {
+            return null;
+        }
+
+        scoreNodes(getNodesToCheck(known), context);
+        return known;
+    }
+
+    /**
+     * Tries the path that led to the top node on the last page from the same domain. The node it leads to must not have too many links, then
+     * only the paragraphs inside it are scored: it has to come out on top of them with a decent score. If one of its children scores higher,
+     * the path leads to a wrapper around the content and not the content.
+     *
+     * @return the learned top node, or <code>null</code> if the clustering has to run
+     */
+    private Element findLearnedTopNode(ExtractionContext context, DomainProfiles profiles) {
+        Element candidate = profiles.find(getDomain(context.getUrl()), context.getDocument());
+        if (candidate == null) {
+            return null;
+        }
+
+        if (isHighLinkDensity(candidate, context.getTextStats())) {
+            profiles.recordRejection();
+            return null;
+        }
+
+        NodeScores scores = context.getScores();
+        Set<Element> parentNodes = scoreNodes(getNodesToCheck(candidate), context);
+        if (pickTopNode(parentNodes, scores) != candidate || scores.getScore(candidate) < MIN_LEARNED_SCORE) {
+            context.getScores().clear();
+            profiles.recordRejection();
+            return null;
+        }
+
+        profiles.recordHit();
+        return candidate;
+    }
+
+    /**
+     * Scores the parents and grandparents of the nodes that look like text, the later ones might be comments so they get less
+     *
+     * @return the nodes that got a score, in the order they first got it
+     */
+    private Set<Element> scoreNodes(ArrayList<Element> nodesToCheck, ExtractionContext context) {
+        NodeScores scores = context.getScores();
+        NodeTextStats textStats = context.getTextStats();
+
+        double startingBoost = 1.0;
+        int cnt = 0;
+        int i = 0;
+
+        // holds all the parents of the nodes we're checking, jsoup hashes elements by identity so a plain hash set would break ties between
+        // equal scores differently from one run to the next
+        Set<Element> parentNodes = new LinkedHashSet<>();
+        ArrayList<Element> nodesWithText = new ArrayList<>();
+
+        for (Element node : nodesToCheck) {
+            int stopWordCount = textStats.getStopWordCount(node);
+            boolean highLinkDensity = isHighLinkDensity(node, textStats);
+
+            if (stopWordCount > 2 && !highLinkDensity) {
+
+                nodesWithText.add(node);
+            }
+        }
+
+        int numberOfNodes = nodesWithText.size();
+        int negativeScoring = 0; // we shouldn't give more negatives than positives
+        // we want to give the last 20% of nodes negative scores in case they're comments
+        double bottomNodesForNegativeScore = (float) numberOfNodes * 0.25;
+
+        for (Element node : nodesWithText) {
+            // add parents and grandparents to scoring
+            // only add boost to the middle paragraphs, top and bottom is usually jankz city
+            // so basically what we're doing is giving boost scores to paragraphs that appear higher up in the dom
+            // and giving lower, even negative scores to those who appear lower which could be commenty stuff
+
+            float boostScore = 0;
+            if (isOkToBoost(node, textStats)) {
+                if (cnt >= 0) {
+                    boostScore = (float) ((1.0 / startingBoost) * 50);
+                    startingBoost++;
+                }
+            }
+
+            // check for negative node values
+            if (numberOfNodes > 15) {
+                if ((numberOfNodes - i) <= bottomNodesForNegativeScore) {
+                    float booster = (float) bottomNodesForNegativeScore - (float) (numberOfNodes - i);
+                    boostScore = -(float) Math.pow(booster, (float) 2);
+
+                    // we don't want to score too highly on the negative side.
+                    float negScore = Math.abs(boostScore) + negativeScoring;
+                    if (negScore > 40) {
+                        boostScore = 5;
+                    }
+                }
+            }
+
+            int upScore = (int) (textStats.getStopWordCount(node) + boostScore);
+            scores.updateScore(node.parent(), upScore);
+            scores.updateScore(node.parent().parent(), upScore / 2);
+            scores.updateNodeCount(node.parent(), 1);
+            scores.updateNodeCount(node.parent().parent(), 1);
+
+            if (!parentNodes.contains(node.parent())) {
+                parentNodes.add(node.parent());
+            }
+
+            if (!parentNodes.contains(node.parent().parent())) {
+                parentNodes.add(node.parent().parent());
+            }
+
+            cnt++;
+            i++;
+        }
+
+        return parentNodes;
+    }
+
+    /**
+     * Returns a list of nodes we want to search on like paragraphs and tables
+     */
+    private ArrayList<Element> getNodesToCheck(Element root) {
+        ArrayList<Element> nodesToCheck = new ArrayList<>();
+
+        nodesToCheck.addAll(root.getElementsByTag("p"));
+        nodesToCheck.addAll(root.getElementsByTag("pre"));
+        nodesToCheck.addAll(root.getElementsByTag("td"));
+        return nodesToCheck;
+
+    }
+
+    /**
+     * Checks the density of links within a node, is there not much text and most of it contains linky shit? if so it's no good
+     */
+    private static boolean isHighLinkDensity(Element e, NodeTextStats textStats) {
+        return textStats.getLinkDensity(e) > 1;
+    }
+
+    /**
+     * A lot of times the first paragraph might be the caption under an image so we'll want to make sure if we're going to boost a parent
+     * node that it should be connected to other paragraphs, at least for the first n paragraphs so we'll want to make sure that the next
+     * sibling is a paragraph and has at least some substatial weight to it
+     */
+    private boolean isOkToBoost(Element node, NodeTextStats textStats) {
+
+        int stepsAway = 0;
+
+        Element sibling = node.nextElementSibling();
+        while (sibling != null) {
+
+            if (sibling.tagName().equals("p")) {
+                if (stepsAway >= 3) {
+                    return false;
+                }
+
+                if (textStats.getStopWordCount(sibling) > 5) {
+                    return true;
+                }
+
+            }
+
+            // increase how far away the next paragraph is from this node
+            stepsAway++;
+
+            sibling = sibling.nextElementSibling();
+        }
+
+        return false;
+    }
+
+    /**
+     * Pulls out videos we like
+     */
+    private ArrayList<Element> extractVideos(Element node) {
+        ArrayList<Element> candidates = new ArrayList<>();
+        ArrayList<Element> goodMovies = new ArrayList<>();
+        try {
+
+            Elements embeds = node.parent().getElementsByTag("embed");
+            for (Element el : embeds) {
+                candidates.add(el);
+            }
+            Elements objects = node.parent().getElementsByTag("object");
+            for (Element el : objects) {
+                candidates.add(el);
+            }
+
+            for (Element el : candidates) {
+
+                Attributes attrs = el.attributes();
+
+                for (Attribute a : attrs) {
+                    try {
+                        if ((a.getValue().contains("youtube") || a.getValue().contains("vimeo")) && a.getKey().equals("src")) {
+                            goodMovies.add(el);
+
+                        }
+                    } catch (Exception ignored) {
+                    }
+                }
+
+            }
+        } catch (Exception ignored) {
+        }
+
+        return goodMovies;
+    }
+
+    /**
+     * Remove any divs that looks like non-content, clusters of links, or paras with no gusto
+     */
+    private Element cleanupNode(Element node, ExtractionContext context) {
+        NodeScores scores = context.getScores();
+        NodeTextStats textStats = context.getTextStats();
+        if (context.canRun(OptionalStep.SIBLINGS)) {
+            node = addSiblings(node, textStats);
+        }
+
+        // the top node's score doesn't change while we take its children apart
+        int topNodeScore = scores.getScore(node);
+        float thresholdScore = (float) (topNodeScore * .08);
+
+        Elements nodes = node.children();
+        for (Element e : nodes) {
+            if (e.tagName().equals("p")) {
+                continue;
+            }
+            boolean highLinkDensity = isHighLinkDensity(e, textStats);
+            if (highLinkDensity) {
+                e.remove();
+                continue;
+            }
+
+            // now check for word density
+            // grab all the paragraphs in the children and remove ones that are too small to matter, counting the ones that stay
+            // (paragraphs never nest, so removing one doesn't take any of the others with it)
+            Elements subParagraphs = e.getElementsByTag("p");
+            int keptParagraphs = 0;
+            for (Element p : subParagraphs) {
+                if (textStats.getTextLength(p) < 25) {
+                    p.remove();
+                } else {
+                    keptParagraphs++;
+                }
+            }
+
+            // now that we've removed shorty paragraphs let's make sure to exclude any first paragraphs that don't have paras as
+            // their next siblings to avoid getting img bylines
+            // first let's remove any element that now doesn't have any p tags at all
+            if (keptParagraphs == 0 && !e.tagName().equals("td")) {
+                e.remove();
+                continue;
+            }
+
+            //if this node has a decent enough gravityScore we should keep it as well, might be content
+            int currentNodeScore = scores.getScore(e);
+            if (currentNodeScore < thresholdScore) {
+                if (!e.tagName().equals("td")) {
+                    e.remove();
+                }
+            }
+
+        }
+
+        return node;
+    }
+
+    /**
+     * Adds any siblings that may have a decent score to this node. The siblings are copied node by node, there's no need to turn them into
+     * html and parse them again.
+     */
+    private Element addSiblings(Element node, NodeTextStats textStats) {
+        int baselineScoreForSiblingParagraphs = getBaselineScoreForSiblings(node, textStats);
+        Document doc = node.ownerDocument();
+
+        Element currentSibling = node.previousElementSibling();
+        while (currentSibling != null) {
+            if (currentSibling.tagName().equals("p")) {
+                insertBeforeChild(node, 0, currentSibling.clone());
+                currentSibling = currentSibling.previousElementSibling();
+                continue;
+            }
+
+            // check for a paragraph embedded in a containing element
+            int insertedSiblings = 0;
+            Elements potentialParagraphs = currentSibling.getElementsByTag("p");
+            if (potentialParagraphs.first() == null) {
+                currentSibling = currentSibling.previousElementSibling();
+                continue;
+            }
+            for (Element firstParagraph : potentialParagraphs) {
+                int paragraphScore = textStats.getStopWordCount(firstParagraph);
+
+                if ((float) (baselineScoreForSiblingParagraphs * .30) < paragraphScore) {
+                    // a paragraph with just the text of the one we found, followed by an empty one
+                    Element paragraph = doc.createElement("p");
+                    paragraph.appendText(textStats.getText(firstParagraph));
+                    insertBeforeChild(node, insertedSiblings, paragraph);
+                    insertBeforeChild(node, insertedSiblings + 1, doc.createElement("p"));
+                    insertedSiblings++;
+                }
+
+            }
+
+            currentSibling = currentSibling.previousElementSibling();
+        }
+        return node;
+
+    }
+
+    /**
+     * Puts the new node right before the child element at the given index, or at the end if there's no such child
+     */
+    private static void insertBeforeChild(Element parent, int index, Node newNode) {
+        Elements children = parent.children();
+        if (index < children.size()) {
+            children.get(index).before(newNode);
+        } else {
+            parent.appendChild(newNode);
+        }
+    }
+
+    /**
+     * We could have long articles that have tons of paragraphs so if we tried to calculate the base score against the total text score of
+     * those paragraphs it would be unfair. So we need to normalize the score based on the average scoring of the paragraphs within the top
+     * node. For example if our total score of 10 paragraphs was 1000 but each had an average value of 100 then 100 should be our base.
+     */
+    private int getBaselineScoreForSiblings(Element topNode, NodeTextStats textStats) {
+        int base = 100000;
+        int numberOfParagraphs = 0;
+        int scoreOfParagraphs = 0;
+
+        Elements nodesToCheck = topNode.getElementsByTag("p");
+        for (Element node : nodesToCheck) {
+            int stopWordCount = textStats.getStopWordCount(node);
+            boolean highLinkDensity = isHighLinkDensity(node, textStats);
+
+            if (stopWordCount > 2 && !highLinkDensity) {
+                numberOfParagraphs++;
+                scoreOfParagraphs += stopWordCount;
+            }
+        }
+
+        if (numberOfParagraphs > 0) {
+            base = scoreOfParagraphs / numberOfParagraphs;
+        }
+
+        return base;
+    }
+
+}
@@ -0,0 +1,196 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers where the content was on the last page of every domain. Most sites put all their articles in the same template, so once we know
+ * the path from the body to the top node on one page, the next page from that domain usually has it in the same place. The path is a chain
+ * of tag, id and class steps, with the digits left out of the ids and classes since those tend to be article numbers.
+ * <p/>
+ * A learned node is only used if it passes the same stop word and link density checks the clustering uses, otherwise the extraction falls
+ * back to clustering and learns the new path. Only the most recently used domains are kept. One store can be shared by any number of
+ * extractors and threads.
+ */
+public class DomainProfiles {
+
+    private final int maxDomains;
+    private final LinkedHashMap<String, String[]> paths;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * @param maxDomains how many domains to remember, the least recently used ones are forgotten first
+     */
+    public DomainProfiles(final int maxDomains) {
+        if (maxDomains < 1)
+            throw new IllegalArgumentException("maxDomains must be positive!");
+
+        this.maxDomains = maxDomains;
+        this.paths = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+                return size() > DomainProfiles.this.maxDomains;
+            }
+        };
+    }
+
+    /**
+     * @return how many extractions used the learned top node and skipped the clustering
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return how many extractions had nothing learned for their domain, or couldn't find the learned path on the page
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return how many extractions found the learned node but didn't like what was in it
+     */
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+
+    /**
+     * @return how many domains we know right now
+     */
+    public int size() {
+        synchronized (paths) {
+            return paths.size();
+        }
+    }
+
+    /**
+     * Follows the path learned for the domain in the given document, this counts as a miss if there's no such node
+     *
+     * @return the node at the end of the path, or <code>null</code>
+     */
+    Element find(String domain, Document doc) {
+        String[] path;
+        synchronized (paths) {
+            path = paths.get(domain);
+        }
+
+        Element node = path == null ? null : follow(doc.body(), path);
+        if (node == null) {
+            misses.incrementAndGet();
+        }
+        return node;
+    }
+
+    /**
+     * Remembers the path from the body to the top node for this domain, nothing happens if the top node isn't inside the body
+     */
+    void learn(String domain, Element topNode) {
+        Document doc = topNode.ownerDocument();
+        Element body = doc == null ? null : doc.body();
+        if (body == null) {
+            return;
+        }
+
+        ArrayList<String> steps = new ArrayList<>();
+        Element node = topNode;
+        while (node != body) {
+            Element parent = node.parent();
+            if (parent == null) {
+                // not under the body after all
+                return;
+            }
+
+            String signature = signatureOf(node);
+            int index = 0;
+            for (Element sibling : parent.children()) {
+                if (sibling == node) {
+                    break;
+                }
+                if (signature.equals(signatureOf(sibling))) {
+                    index++;
+                }
+            }
+            steps.add(signature + "[" + index + "]");
+            node = parent;
+        }
+
+        String[] path = new String[steps.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = steps.get(path.length - 1 - i);
+        }
+
+        synchronized (paths) {
+            paths.put(domain, path);
+        }
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordRejection() {
+        rejections.incrementAndGet();
+    }
+
+    private static Element follow(Element node, String[] path) {
+        for (String step : path) {
+            if (node == null) {
+                return null;
+            }
+
+            int bracket = step.lastIndexOf('[');
+            String signature = step.substring(0, bracket);
+            int index = Integer.parseInt(step.substring(bracket + 1, step.length() - 1));
+
+            Element next = null;
+            for (Element child : node.children()) {
+                if (signature.equals(signatureOf(child)) && index-- == 0) {
+                    next = child;
+                    break;
+                }
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    private static String signatureOf(Element element) {
+        return element.tagName() + "#" + withoutDigits(element.id()) + "." + withoutDigits(element.className());
+    }
+
+    private static String withoutDigits(String value) {
+        StringBuilder builder = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (builder == null) {
+                    builder = new StringBuilder(value.length()).append(value, 0, i);
+                }
+            } else if (builder != null) {
+                builder.append(c);
+            }
+        }
+        return builder == null ? value : builder.toString();
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * Caps on what a single extraction may spend. The parsing, cleaning and scoring always run, but once any of these is used up the optional
+ * steps that can take a long time are skipped (see {@link OptionalStep}) and the article comes back with whatever was found so far. A limit
+ * of 0 means there's no limit, which is what a new budget starts with.
+ */
+public class ExtractionBudget {
+
+    private long maxMillis;
+    private int maxDomNodes;
+    private int maxHttpRequests;
+    private long maxImageBytes;
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * @param maxMillis wall time since the extraction started, including the download of the page
+     */
+    @SuppressWarnings("unused")
+    public void setMaxMillis(long maxMillis) throws IllegalArgumentException {
+        if (maxMillis < 0)
+            throw new IllegalArgumentException("maxMillis must not be negative!");
+        this.maxMillis = maxMillis;
+    }
+
+    public int getMaxDomNodes() {
+        return maxDomNodes;
+    }
+
+    /**
+     * @param maxDomNodes elements in the parsed page, anything bigger skips the optional steps right away
+     */
+    @SuppressWarnings("unused")
+    public void setMaxDomNodes(int maxDomNodes) throws IllegalArgumentException {
+        if (maxDomNodes < 0)
+            throw new IllegalArgumentException("maxDomNodes must not be negative!");
+        this.maxDomNodes = maxDomNodes;
+    }
+
+    public int getMaxHttpRequests() {
+        return maxHttpRequests;
+    }
+
+    /**
+     * @param maxHttpRequests connections opened for the page and its images
+     */
+    @SuppressWarnings("unused")
+    public void setMaxHttpRequests(int maxHttpRequests) throws IllegalArgumentException {
+        if (maxHttpRequests < 0)
+            throw new IllegalArgumentException("maxHttpRequests must not be negative!");
+        this.maxHttpRequests = maxHttpRequests;
+    }
+
+    public long getMaxImageBytes() {
+        return maxImageBytes;
+    }
+
+    /**
+     * @param maxImageBytes bytes of images downloaded to find the top image
+     */
+    @SuppressWarnings("unused")
+    public void setMaxImageBytes(long maxImageBytes) throws IllegalArgumentException {
+        if (maxImageBytes < 0)
+            throw new IllegalArgumentException("maxImageBytes must not be negative!");
+        this.maxImageBytes = maxImageBytes;
+    }
+
+    /**
+     * @param metrics      what the extraction has used up so far
+     * @param elapsedNanos how long ago the extraction started
+     * @return <code>true</code> if any of the limits has been reached
+     */
+    public boolean isSpent(ExtractionMetrics metrics, long elapsedNanos) {
+        return (maxMillis > 0 && elapsedNanos >= maxMillis * 1000000L)
+                || (maxDomNodes > 0 && metrics.getDomNodeCount() > maxDomNodes)
+                || (maxHttpRequests > 0 && metrics.getHttpRequests() >= maxHttpRequests)
+                || (maxImageBytes > 0 && metrics.getImageBytes() >= maxImageBytes);
+    }
+
+}
@@ -0,0 +1,265 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Document;
+
+import java.io.InputStream;
+
+import me.angrybyte.goose.network.HtmlBytes;
+import me.angrybyte.goose.texthelpers.NodeTextStats;
+
+/**
+ * Holds everything that belongs to the extraction of one article. The {@link ContentExtractor} itself keeps no per-article state, so one
+ * extractor can serve any number of threads as long as each extraction gets its own context.
+ */
+public class ExtractionContext {
+
+    /**
+     * the url we're crawling, with any ajax fragments already rewritten
+     */
+    private final String url;
+
+    /**
+     * the MD5 of the url, used to reference the images we download for this page so we can easily clean them up when we're done
+     */
+    private final String linkHash;
+
+    /**
+     * true to preserve useful html tags in the top node
+     */
+    private final boolean forWebView;
+
+    /**
+     * true to read only the head of the page and fill in the meta fields of the article, see {@link ExtractionStage#isMetadata()}
+     */
+    private boolean metadataOnly;
+
+    /**
+     * the result we're building up
+     */
+    private final Article article = new Article();
+
+    /**
+     * gravity scores of the nodes we looked at while searching for the top node
+     */
+    private final NodeScores scores = new NodeScores();
+
+    /**
+     * timings and sizes of this extraction, for the {@link ExtractionListener}
+     */
+    private final ExtractionMetrics metrics = new ExtractionMetrics();
+
+    /**
+     * when this extraction started, for the time limit of the budget
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * how much this extraction may spend, unlimited by default
+     */
+    private ExtractionBudget budget = new ExtractionBudget();
+
+    /**
+     * the html of the page if it was passed in as a string
+     */
+    private String rawHtml;
+
+    /**
+     * the html of the page if it was passed in as a stream, read during the download stage
+     */
+    private InputStream htmlStream;
+
+    /**
+     * the html of the page as it was downloaded or read from the stream
+     */
+    private HtmlBytes htmlBytes;
+
+    /**
+     * the key of this page in the article cache, and the article we found there
+     */
+    private String cacheKey;
+    private Article cachedArticle;
+
+    private Document document;
+
+    private NodeTextStats textStats;
+
+    private PageMetadata pageMetadata;
+
+    /**
+     * the exception that stopped this extraction, and the stage that threw it
+     */
+    private Exception error;
+    private ExtractionStage failedStage;
+
+    public ExtractionContext(String url, String linkHash, boolean forWebView) {
+        this.url = url;
+        this.linkHash = linkHash;
+        this.forWebView = forWebView;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getLinkHash() {
+        return linkHash;
+    }
+
+    public boolean isForWebView() {
+        return forWebView;
+    }
+
+    public boolean isMetadataOnly() {
+        return metadataOnly;
+    }
+
+    public void setMetadataOnly(boolean metadataOnly) {
+        this.metadataOnly = metadataOnly;
+    }
+
+    public Article getArticle() {
+        return article;
+    }
+
+    public NodeScores getScores() {
+        return scores;
+    }
+
+    public ExtractionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ExtractionBudget getBudget() {
+        return budget;
+    }
+
+    public void setBudget(ExtractionBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Checks the budget before an optional step, and notes on the article if the step has to be skipped
+     *
+     * @return <code>true</code> if there's budget left for the step
+     */
+    public boolean canRun(OptionalStep step) {
+        if (isBudgetSpent()) {
+            article.addSkippedStep(step);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same check as {@link #canRun(OptionalStep)}, but nothing is noted on the article, so it's safe to call from any thread
+     *
+     * @return <code>true</code> if the budget has run out
+     */
+    public boolean isBudgetSpent() {
+        return budget.isSpent(metrics, System.nanoTime() - startNanos);
+    }
+
+    public String getRawHtml() {
+        return rawHtml;
+    }
+
+    public void setRawHtml(String rawHtml) {
+        this.rawHtml = rawHtml;
+    }
+
+    public InputStream getHtmlStream() {
+        return htmlStream;
+    }
+
+    public void setHtmlStream(InputStream htmlStream) {
+        this.htmlStream = htmlStream;
+    }
+
+    public HtmlBytes getHtmlBytes() {
+        return htmlBytes;
+    }
+
+    public void setHtmlBytes(HtmlBytes htmlBytes) {
+        this.htmlBytes = htmlBytes;
+    }
+
+    /**
+     * @return <code>true</code> once we have the html of the page, one way or another
+     */
+    public boolean hasHtml() {
+        return rawHtml != null || htmlBytes != null;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public Article getCachedArticle() {
+        return cachedArticle;
+    }
+
+    /**
+     * Finishes the extraction early with an article from the cache, no more stages will run for it
+     */
+    public void setCachedArticle(Article cachedArticle) {
+        this.cachedArticle = cachedArticle;
+        metrics.setCacheHit(true);
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public void setDocument(Document document) {
+        this.document = document;
+    }
+
+    public NodeTextStats getTextStats() {
+        return textStats;
+    }
+
+    public void setTextStats(NodeTextStats textStats) {
+        this.textStats = textStats;
+    }
+
+    public PageMetadata getPageMetadata() {
+        return pageMetadata;
+    }
+
+    public void setPageMetadata(PageMetadata pageMetadata) {
+        this.pageMetadata = pageMetadata;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    public ExtractionStage getFailedStage() {
+        return failedStage;
+    }
+
+    /**
+     * Marks this extraction as failed, no more stages will run for it
+     */
+    public void fail(ExtractionStage stage, Exception error) {
+        this.failedStage = stage;
+        this.error = error;
+        metrics.recordFailure(stage);
+    }
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * Gets told how each extraction went, stage by stage. Set it with {@link Configuration#setExtractionListener(ExtractionListener)}; it's called
+ * on whatever thread ran the stage, so it has to be thread safe. See {@link me.angrybyte.goose.metrics.MetricsRegistry} for one that keeps
+ * histograms of everything.
+ */
+public interface ExtractionListener {
+
+    /**
+     * @param url   the url being extracted
+     * @param stage the stage that just ran
+     * @param nanos how long it took
+     * @param error what it threw, or <code>null</code> if it went well
+     */
+    void onStageFinished(String url, ExtractionStage stage, long nanos, Exception error);
+
+    /**
+     * Called once the extraction is over, whether all the stages ran or not
+     *
+     * @param url     the url that was extracted
+     * @param metrics the timings and sizes measured along the way
+     */
+    void onExtractionFinished(String url, ExtractionMetrics metrics);
+
+}
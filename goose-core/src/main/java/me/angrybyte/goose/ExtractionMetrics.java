@@ -0,0 +1,142 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What one extraction cost: how long each stage took and how much it had to chew through. It's filled in as the stages run, so it's only
+ * complete once {@link ExtractionListener#onExtractionFinished(String, ExtractionMetrics)} is called.
+ */
+public class ExtractionMetrics {
+
+    private static final ExtractionStage[] STAGES = ExtractionStage.values();
+
+    private final long[] stageNanos = new long[STAGES.length];
+
+    private ExtractionStage failedStage;
+    private int htmlBytes;
+    private int domNodeCount;
+    private int candidateNodeCount;
+    // the images of a page are downloaded on several threads at once
+    private final AtomicInteger httpRequests = new AtomicInteger();
+    private final AtomicLong imageBytes = new AtomicLong();
+    private boolean cacheHit;
+
+    public ExtractionMetrics() {
+        Arrays.fill(stageNanos, -1);
+    }
+
+    /**
+     * @return how long the stage took, or -1 if it didn't run
+     */
+    public long getStageNanos(ExtractionStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * @return how long all the stages that ran took together
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : stageNanos) {
+            if (nanos > 0) {
+                total += nanos;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the stage that stopped the extraction, or <code>null</code> if all went well
+     */
+    public ExtractionStage getFailedStage() {
+        return failedStage;
+    }
+
+    /**
+     * @return how many bytes of html were downloaded or read, or the length of the html if it was passed in as a string
+     */
+    public int getHtmlBytes() {
+        return htmlBytes;
+    }
+
+    /**
+     * @return how many elements the parsed document had
+     */
+    public int getDomNodeCount() {
+        return domNodeCount;
+    }
+
+    /**
+     * @return how many nodes were scored while looking for the top node
+     */
+    public int getCandidateNodeCount() {
+        return candidateNodeCount;
+    }
+
+    /**
+     * @return how many connections were opened, for the page and for its images
+     */
+    public int getHttpRequests() {
+        return httpRequests.get();
+    }
+
+    /**
+     * @return how many bytes of images were downloaded
+     */
+    public long getImageBytes() {
+        return imageBytes.get();
+    }
+
+    /**
+     * @return <code>true</code> if the article came from the cache, in which case nothing after {@link ExtractionStage#CACHE} ran
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public void recordHttpRequest() {
+        httpRequests.incrementAndGet();
+    }
+
+    public void recordImageBytes(long bytes) {
+        imageBytes.addAndGet(bytes);
+    }
+
+    void recordStage(ExtractionStage stage, long nanos) {
+        stageNanos[stage.ordinal()] = nanos;
+    }
+
+    void recordFailure(ExtractionStage stage) {
+        failedStage = stage;
+    }
+
+    void setHtmlBytes(int htmlBytes) {
+        this.htmlBytes = htmlBytes;
+    }
+
+    void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    void setDomNodeCount(int domNodeCount) {
+        this.domNodeCount = domNodeCount;
+    }
+
+    void setCandidateNodeCount(int candidateNodeCount) {
+        this.candidateNodeCount = candidateNodeCount;
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.reactivestreams.Publisher;
+
+import java.util.EnumMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import me.angrybyte.goose.texthelpers.string;
+
+/**
+ * Extracts a whole batch of articles at once. Each {@link ExtractionStage} runs on its own thread pool, sized for I/O if the stage blocks on the
+ * network or for the CPU otherwise. A stage only takes as many pages from the stage before it as it has threads and queue room for, so a slow
+ * stage holds back the ones before it instead of letting parsed documents pile up in memory.
+ * <p/>
+ * Results come out in the order they finish, not in the order they were requested. Call {@link #shutdown()} once the pipeline is not needed
+ * anymore to stop its threads.
+ */
+public class ExtractionPipeline {
+
+    private static final int DEFAULT_IO_THREADS = 8;
+    private static final int DEFAULT_QUEUE_SIZE = 16;
+
+    private final ContentExtractor extractor;
+    private final int queueSize;
+
+    private final EnumMap<ExtractionStage, ExecutorService> executors = new EnumMap<>(ExtractionStage.class);
+    private final EnumMap<ExtractionStage, Scheduler> schedulers = new EnumMap<>(ExtractionStage.class);
+    private final EnumMap<ExtractionStage, Integer> threads = new EnumMap<>(ExtractionStage.class);
+
+    /**
+     * Creates a pipeline with a thread per core for each CPU stage and {@value #DEFAULT_IO_THREADS} threads for each I/O stage
+     */
+    public ExtractionPipeline(ContentExtractor extractor) {
+        this(extractor, DEFAULT_IO_THREADS, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * @param extractor  the extractor to run the stages with, it's shared by all the threads
+     * @param ioThreads  how many threads each of the stages that block on the network gets
+     * @param cpuThreads how many threads each of the CPU bound stages gets
+     * @param queueSize  how many pages can wait in front of each stage
+     */
+    public ExtractionPipeline(ContentExtractor extractor, int ioThreads, int cpuThreads, int queueSize) {
+        if (ioThreads < 1 || cpuThreads < 1 || queueSize < 1)
+            throw new IllegalArgumentException("Thread counts and queue size must be positive!");
+
+        this.extractor = extractor;
+        this.queueSize = queueSize;
+
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            int stageThreads = stage.isBlocking() ? ioThreads : cpuThreads;
+            ExecutorService executor = Executors.newFixedThreadPool(stageThreads, new StageThreadFactory(stage));
+            executors.put(stage, executor);
+            schedulers.put(stage, Schedulers.from(executor));
+            threads.put(stage, stageThreads);
+        }
+    }
+
+    /**
+     * Downloads and extracts all the given urls
+     *
+     * @param urls       The urls you want to extract the text from
+     * @param forWebView true to preserve useful html tags in topNode
+     */
+    public Flowable<ExtractionResult> extractUrls(Publisher<String> urls, final boolean forWebView) {
+        return extract(Flowable.fromPublisher(urls).map(new Function<String, ExtractionRequest>() {
+            @Override
+            public ExtractionRequest apply(String url) {
+                return new ExtractionRequest(url, forWebView);
+            }
+        }));
+    }
+
+    /**
+     * Runs all the requests through the pipeline. Nothing happens until the returned flowable is subscribed to, and requests are pulled from
+     * the source only as fast as the pipeline can take them.
+     */
+    public Flowable<ExtractionResult> extract(Publisher<ExtractionRequest> requests) {
+        Flowable<ExtractionContext> contexts = Flowable.fromPublisher(requests).map(new Function<ExtractionRequest, ExtractionContext>() {
+            @Override
+            public ExtractionContext apply(ExtractionRequest request) {
+                return createContext(request);
+            }
+        });
+
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            contexts = contexts.flatMap(runOnStage(stage), false, threads.get(stage), queueSize);
+        }
+
+        return contexts.map(new Function<ExtractionContext, ExtractionResult>() {
+            @Override
+            public ExtractionResult apply(ExtractionContext context) {
+                return finish(context);
+            }
+        });
+    }
+
+    /**
+     * Stops the threads of all the stages, extractions that are still running are allowed to finish
+     */
+    public void shutdown() {
+        for (ExecutorService executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+
+    private ExtractionContext createContext(ExtractionRequest request) {
+        try {
+            return extractor.createContext(request.getUrl(), request.getHtml(), request.isForWebView());
+        } catch (IllegalArgumentException e) {
+            // keep the bad url in the stream so the caller gets a result for it
+            ExtractionContext context = new ExtractionContext(request.getUrl(), string.empty, request.isForWebView());
+            context.fail(ExtractionStage.DOWNLOAD, e);
+            return context;
+        }
+    }
+
+    private Function<ExtractionContext, Publisher<ExtractionContext>> runOnStage(final ExtractionStage stage) {
+        final Scheduler scheduler = schedulers.get(stage);
+        return new Function<ExtractionContext, Publisher<ExtractionContext>>() {
+            @Override
+            public Publisher<ExtractionContext> apply(final ExtractionContext context) {
+                if (context.getError() != null) {
+                    // it already failed, just pass it along to the end
+                    return Flowable.just(context);
+                }
+
+                return Flowable.fromCallable(new Callable<ExtractionContext>() {
+                    @Override
+                    public ExtractionContext call() {
+                        extractor.runStage(stage, context);
+                        return context;
+                    }
+                }).subscribeOn(scheduler);
+            }
+        };
+    }
+
+    private ExtractionResult finish(ExtractionContext context) {
+        Article article = extractor.finish(context);
+        return new ExtractionResult(context.getUrl(), article, context.getError(), context.getFailedStage(), context.getMetrics());
+    }
+
+    /**
+     * Names the threads after their stage so they're easy to spot in a stack dump
+     */
+    private static class StageThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        StageThreadFactory(ExtractionStage stage) {
+            this.prefix = "goose-" + stage.name().toLowerCase() + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
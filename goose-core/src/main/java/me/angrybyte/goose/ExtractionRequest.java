@@ -0,0 +1,54 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * One page to extract in a batch, see {@link ExtractionPipeline}
+ */
+public class ExtractionRequest {
+
+    private final String url;
+    private final String html;
+    private final boolean forWebView;
+
+    /**
+     * @param url        The url you want to extract the text from
+     * @param html       If you already have the raw html handy you can pass it here to avoid a network call, otherwise <code>null</code>
+     * @param forWebView true to preserve useful html tags in topNode
+     */
+    public ExtractionRequest(String url, String html, boolean forWebView) {
+        this.url = url;
+        this.html = html;
+        this.forWebView = forWebView;
+    }
+
+    /**
+     * @param url        The url you want to extract the text from, makes a network call
+     * @param forWebView true to preserve useful html tags in topNode
+     */
+    public ExtractionRequest(String url, boolean forWebView) {
+        this(url, null, forWebView);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public boolean isForWebView() {
+        return forWebView;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * The outcome of one {@link ExtractionRequest} that went through the {@link ExtractionPipeline}
+ */
+public class ExtractionResult {
+
+    private final String url;
+    private final Article article;
+    private final Exception error;
+    private final ExtractionStage failedStage;
+    private final ExtractionMetrics metrics;
+
+    public ExtractionResult(String url, Article article, Exception error, ExtractionStage failedStage, ExtractionMetrics metrics) {
+        this.url = url;
+        this.article = article;
+        this.error = error;
+        this.failedStage = failedStage;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the url we extracted, with any ajax fragments already rewritten
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Same as what {@link ContentExtractor#extractContent(String, boolean)} would return: <code>null</code> if we never got the html, or the
+     * article with whatever we managed to extract before something went wrong.
+     */
+    public Article getArticle() {
+        return article;
+    }
+
+    /**
+     * @return the exception that stopped this extraction, or <code>null</code> if all went well
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return the stage that threw {@link #getError()}, or <code>null</code> if all went well
+     */
+    public ExtractionStage getFailedStage() {
+        return failedStage;
+    }
+
+    /**
+     * @return how long each stage took and how much it had to work through
+     */
+    public ExtractionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+}
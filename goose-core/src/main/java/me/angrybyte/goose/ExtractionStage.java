@@ -0,0 +1,110 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * The steps every extraction goes through, in order. Stages that wait on the network are marked as blocking so they can be given more threads
+ * than there are cores. A metadata only extraction goes through just the stages that are needed for the head of the page.
+ */
+public enum ExtractionStage {
+
+    DOWNLOAD(true, true) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) throws Exception {
+            // the caller might already have the html handy
+            if (!context.hasHtml()) {
+                extractor.download(context);
+            }
+        }
+    },
+
+    CACHE(false, false) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) throws Exception {
+            extractor.lookupCache(context);
+        }
+    },
+
+    PARSE(false, true) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.parse(context);
+        }
+    },
+
+    EXTRACTORS(false, true) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.runExtractors(context);
+        }
+    },
+
+    CLEAN(false, true) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.clean(context);
+        }
+    },
+
+    CLUSTER(false, false) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.cluster(context);
+        }
+    },
+
+    IMAGES(true, false) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.extractImages(context);
+        }
+    },
+
+    CLEANUP(false, false) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.cleanup(context);
+        }
+    },
+
+    FORMAT(false, false) {
+        @Override
+        void run(ContentExtractor extractor, ExtractionContext context) {
+            extractor.format(context);
+        }
+    };
+
+    private final boolean blocking;
+    private final boolean metadata;
+
+    ExtractionStage(boolean blocking, boolean metadata) {
+        this.blocking = blocking;
+        this.metadata = metadata;
+    }
+
+    /**
+     * @return <code>true</code> if this stage spends most of its time waiting on I/O
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * @return <code>true</code> if this stage runs in a metadata only extraction too
+     */
+    public boolean isMetadata() {
+        return metadata;
+    }
+
+    abstract void run(ContentExtractor extractor, ExtractionContext context) throws Exception;
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logging for the whole library. Messages go to the first {@link GooseLogger} registered as a service (the Android module registers one that
+ * writes to logcat), or to {@link java.util.logging} if there is none.
+ */
+public final class GooseLog {
+
+    private static volatile GooseLogger logger;
+
+    private GooseLog() {}
+
+    /**
+     * Replaces the logger found on the classpath
+     */
+    @SuppressWarnings("unused")
+    public static void setLogger(GooseLogger logger) throws IllegalArgumentException {
+        if (logger == null)
+            throw new IllegalArgumentException("logger must not be null!");
+        GooseLog.logger = logger;
+    }
+
+    public static void w(String tag, String message) {
+        getLogger().w(tag, message, null);
+    }
+
+    public static void e(String tag, String message) {
+        getLogger().e(tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        getLogger().e(tag, message, error);
+    }
+
+    private static GooseLogger getLogger() {
+        GooseLogger current = logger;
+        if (current == null) {
+            // a race here only means the lookup is done twice
+            Iterator<GooseLogger> found = ServiceLoader.load(GooseLogger.class).iterator();
+            current = found.hasNext() ? found.next() : new JavaLogger();
+            logger = current;
+        }
+        return current;
+    }
+
+    /**
+     * Used when no other logger is registered, it's all the plain JVM has
+     */
+    private static class JavaLogger implements GooseLogger {
+
+        @Override
+        public void w(String tag, String message, Throwable error) {
+            Logger.getLogger(tag).log(Level.WARNING, message, error);
+        }
+
+        @Override
+        public void e(String tag, String message, Throwable error) {
+            Logger.getLogger(tag).log(Level.SEVERE, message, error);
+        }
+    }
+
+}
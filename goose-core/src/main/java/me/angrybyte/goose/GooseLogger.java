@@ -0,0 +1,30 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * Where the extractor sends its log messages. The implementation is looked up with {@link java.util.ServiceLoader} the first time something is
+ * logged, see {@link GooseLog}.
+ */
+public interface GooseLogger {
+
+    /**
+     * @param error the exception that caused the warning, or <code>null</code>
+     */
+    void w(String tag, String message, Throwable error);
+
+    /**
+     * @param error the exception that caused the error, or <code>null</code>
+     */
+    void e(String tag, String message, Throwable error);
+
+}
@@ -0,0 +1,615 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * Cuts the scripts, styles and comments out of a page before it's parsed, so they never become nodes. On a lot of news sites the inline
+ * scripts and JSON are more than half of the page, and parsing them only for the cleaner to throw them away costs time and memory.
+ * <p/>
+ * The page is scanned the same way jSoup's tokenizer would read it: tags are read with their quoted attributes, the text of
+ * <code>&lt;title&gt;</code>, <code>&lt;textarea&gt;</code> and the other raw text elements is skipped over, and the end of a script is found
+ * with the same escaping rules. What's left is parsed into the same tree, give or take some whitespace. The only other difference is with
+ * a style inside a <code>&lt;select&gt;</code> or a script inside a <code>&lt;noscript&gt;</code> in the head, jSoup reads those as text
+ * while this still cuts them out.
+ * <p/>
+ * <code>&lt;noscript&gt;</code> stays: jSoup parses its content as markup, and it often holds the only real <code>&lt;img&gt;</code> on pages
+ * that load their images lazily. Scripts with JSON-LD metadata can stay too. A pruner doesn't change, so one can be shared by all threads.
+ */
+public class HtmlPruner {
+
+    private static final String JSON_LD = "application/ld+json";
+
+    // the elements whose text jSoup doesn't parse as markup, the scripts and styles are handled on their own
+    private static final String[] RAW_TEXT = {"xmp", "iframe", "noembed", "noframes"};
+    private static final String[] RC_DATA = {"title", "textarea"};
+
+    private final boolean keepJsonLd;
+
+    /**
+     * Prunes everything, but keeps the JSON-LD scripts
+     */
+    public HtmlPruner() {
+        this(true);
+    }
+
+    /**
+     * @param keepJsonLd whether to keep the <code>&lt;script type="application/ld+json"&gt;</code> blocks, they hold metadata about the article
+     */
+    public HtmlPruner(boolean keepJsonLd) {
+        this.keepJsonLd = keepJsonLd;
+    }
+
+    /**
+     * @return the html without its scripts, styles and comments, or the same string if it had none
+     */
+    public String prune(String html) {
+        return new Scan(html, keepJsonLd).prune();
+    }
+
+    /**
+     * The state of scanning one page
+     */
+    private static final class Scan {
+
+        private final String html;
+        private final int length;
+        private final boolean keepJsonLd;
+
+        // about the tag that was read last
+        private boolean selfClosing;
+        private boolean jsonLd;
+
+        // the title or text area that jSoup closed on its own
+        private String unclosed;
+
+        Scan(String html, boolean keepJsonLd) {
+            this.html = html;
+            this.length = html.length();
+            this.keepJsonLd = keepJsonLd;
+        }
+
+        String prune() {
+            StringBuilder kept = null;
+            int keptUntil = 0;
+            int position = 0;
+
+            while (true) {
+                int start = html.indexOf('<', position);
+                if (start < 0 || start + 1 >= length) {
+                    break;
+                }
+
+                int end;
+                boolean drop = false;
+                char next = html.charAt(start + 1);
+                if (next == '!') {
+                    if (html.startsWith("--", start + 2)) {
+                        end = commentEnd(start + 4);
+                        drop = true;
+                    } else if (html.regionMatches(true, start + 2, "DOCTYPE", 0, 7)) {
+                        end = after('>', start + 2);
+                    } else if (html.startsWith("[CDATA[", start + 2)) {
+                        int close = html.indexOf("]]>", start + 9);
+                        end = close < 0 ? length : close + 3;
+                    } else {
+                        // a bogus comment, like <!x>
+                        end = after('>', start + 2);
+                        drop = true;
+                    }
+                } else if (next == '?') {
+                    // a bogus comment too, jSoup doesn't know processing instructions
+                    end = after('>', start + 1);
+                    drop = true;
+                } else if (next == '/') {
+                    if (start + 2 >= length) {
+                        break;
+                    }
+                    char first = html.charAt(start + 2);
+                    if (isLetter(first)) {
+                        end = tagEnd(nameEnd(start + 2));
+                    } else if (first == '>') {
+                        end = start + 3;
+                    } else {
+                        end = after('>', start + 2);
+                        drop = true;
+                    }
+                } else if (isLetter(next)) {
+                    int nameEnd = nameEnd(start + 1);
+                    boolean script = isNamed(start + 1, nameEnd, "script");
+                    end = tagEnd(nameEnd);
+                    if (end < 0) {
+                        // the page ends inside the tag, jSoup drops it
+                        break;
+                    }
+
+                    if (script) {
+                        // a self closing script has no content, everything after it is markup again
+                        if (!selfClosing) {
+                            boolean keep = keepJsonLd && jsonLd;
+                            end = scriptEnd(end);
+                            drop = !keep;
+                        } else {
+                            drop = true;
+                        }
+                    } else if (isNamed(start + 1, nameEnd, "style")) {
+                        // jSoup turns the content of a self closing style into text, so that one stays as it is
+                        drop = !selfClosing;
+                        end = rawTextEnd(end, "style");
+                    } else if (isNamed(start + 1, nameEnd, "plaintext")) {
+                        // there's no way out of it, the rest is text
+                        break;
+                    } else {
+                        for (String rawText : RAW_TEXT) {
+                            if (isNamed(start + 1, nameEnd, rawText)) {
+                                end = rawTextEnd(end, rawText);
+                                break;
+                            }
+                        }
+                        for (String rcData : RC_DATA) {
+                            if (isNamed(start + 1, nameEnd, rcData)) {
+                                end = rcDataEnd(end, rcData);
+                                break;
+                            }
+                        }
+                    }
+                } else {
+                    // just a < in the text
+                    position = start + 1;
+                    continue;
+                }
+
+                if (end < 0) {
+                    break;
+                }
+                if (unclosed != null) {
+                    // the tag jSoup gave up at might be cut out, so the end tag it makes up has to be there in writing
+                    if (kept == null) {
+                        kept = new StringBuilder(length);
+                    }
+                    kept.append(html, keptUntil, end).append("</").append(unclosed).append('>');
+                    keptUntil = end;
+                    unclosed = null;
+                }
+                if (drop) {
+                    if (kept == null) {
+                        kept = new StringBuilder(length);
+                    }
+                    kept.append(html, keptUntil, start);
+                    if (wouldJoin(kept)) {
+                        // cutting this out would glue what's around it into a tag or an entity, so it has to stay
+                        kept.append(html, start, end);
+                    }
+                    keptUntil = end;
+                }
+                position = end;
+            }
+
+            if (kept == null) {
+                return html;
+            }
+            kept.append(html, keptUntil, length);
+            return kept.toString();
+        }
+
+        /**
+         * @return if the kept html ends with a lone <code>&lt;</code> or the start of an entity, they'd read the html after the cut as
+         * part of themselves
+         */
+        private static boolean wouldJoin(StringBuilder kept) {
+            int last = kept.length() - 1;
+            if (last < 0) {
+                return false;
+            }
+            if (kept.charAt(last) == '<') {
+                return true;
+            }
+            while (last >= 0 && (Character.isLetterOrDigit(kept.charAt(last)) || kept.charAt(last) == '#')) {
+                last--;
+            }
+            return last >= 0 && kept.charAt(last) == '&';
+        }
+
+        /**
+         * Reads the rest of a tag after its name, the way jSoup reads the attributes. Remembers if it was self closing, and if it was a
+         * JSON-LD script.
+         *
+         * @param position where the tag name ends
+         * @return where the tag ends, or -1 if the page ends inside it
+         */
+        private int tagEnd(int position) {
+            selfClosing = false;
+            jsonLd = false;
+            int nameStart = -1;
+            int nameEnd = -1;
+
+            while (position < length) {
+                char c = html.charAt(position);
+                if (isWhitespace(c)) {
+                    position++;
+                } else if (c == '>') {
+                    return position + 1;
+                } else if (c == '/') {
+                    position++;
+                    if (position < length && html.charAt(position) == '>') {
+                        selfClosing = true;
+                        return position + 1;
+                    }
+                    nameStart = -1;
+                } else if (c == '=' && nameStart >= 0) {
+                    // the value, it's only quoted when the quote comes first
+                    position++;
+                    while (position < length && isWhitespace(html.charAt(position))) {
+                        position++;
+                    }
+                    if (position >= length) {
+                        return -1;
+                    }
+
+                    int valueStart;
+                    int valueEnd;
+                    char quote = html.charAt(position);
+                    if (quote == '"' || quote == '\'') {
+                        valueStart = position + 1;
+                        valueEnd = html.indexOf(quote, valueStart);
+                        if (valueEnd < 0) {
+                            return -1;
+                        }
+                        position = valueEnd + 1;
+                    } else if (quote == '>') {
+                        return position + 1;
+                    } else {
+                        valueStart = position;
+                        while (position < length && !isWhitespace(html.charAt(position)) && html.charAt(position) != '>') {
+                            position++;
+                        }
+                        valueEnd = position;
+                    }
+
+                    if (nameEnd - nameStart == 4 && html.regionMatches(true, nameStart, "type", 0, 4)) {
+                        jsonLd = html.substring(valueStart, valueEnd).trim().equalsIgnoreCase(JSON_LD);
+                    }
+                    nameStart = -1;
+                } else {
+                    // an attribute name, the first character is part of it whatever it is
+                    nameStart = position;
+                    position++;
+                    while (position < length) {
+                        c = html.charAt(position);
+                        if (isWhitespace(c) || c == '/' || c == '=' || c == '>') {
+                            break;
+                        }
+                        position++;
+                    }
+                    nameEnd = position;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param position where the content of a raw text element starts
+         * @return where its end tag ends, or the end of the page if it doesn't have one
+         */
+        private int rawTextEnd(int position, String name) {
+            while (true) {
+                int start = html.indexOf("</", position);
+                if (start < 0) {
+                    return length;
+                }
+                int nameEnd = letterEnd(start + 2);
+                if (nameEnd < length && isTagNameOf(start + 2, nameEnd, name)) {
+                    if (isEndTagNameEnd(html.charAt(nameEnd))) {
+                        return endTagEnd(nameEnd);
+                    }
+                    // jSoup eats the character after the name
+                    position = nameEnd + 1;
+                } else {
+                    position = start + 2;
+                }
+            }
+        }
+
+        /**
+         * Like {@link #rawTextEnd(int, String)}, but jSoup gives up on a title or a text area that's never closed, and goes back to markup
+         * at the first tag after the last <code>&lt;/title</code>
+         *
+         * @param position where the content of the element starts
+         * @return where its end tag ends, or where the markup starts again
+         */
+        private int rcDataEnd(int position, String name) {
+            int lastEndTag = -1;
+            for (int found = html.indexOf("</", position); found >= 0; found = html.indexOf("</", found + 2)) {
+                if (html.regionMatches(true, found + 2, name, 0, name.length())) {
+                    lastEndTag = found;
+                }
+            }
+
+            while (true) {
+                int start = html.indexOf('<', position);
+                if (start < 0 || start + 1 >= length) {
+                    return length;
+                }
+                char next = html.charAt(start + 1);
+                if (next == '/') {
+                    int nameEnd = letterEnd(start + 2);
+                    if (nameEnd < length && isTagNameOf(start + 2, nameEnd, name) && isEndTagNameEnd(html.charAt(nameEnd))) {
+                        return endTagEnd(nameEnd);
+                    }
+                    position = start + 2;
+                } else if (isLetter(next) && start > lastEndTag) {
+                    unclosed = name;
+                    return start;
+                } else {
+                    position = start + 1;
+                }
+            }
+        }
+
+        /**
+         * Follows jSoup's script data states, including the escaped ones where a <code>&lt;!--</code> and a nested
+         * <code>&lt;script&gt;</code> hide the closing tag
+         *
+         * @param position where the content of the script starts
+         * @return where its end tag ends, or the end of the page if it doesn't have one
+         */
+        private int scriptEnd(int position) {
+            final int data = 0, escaped = 1, escapedDash = 2, escapedDashDash = 3, escapedLessThan = 4;
+            final int doubleEscaped = 5, doubleEscapedDash = 6, doubleEscapedDashDash = 7, doubleEscapedLessThan = 8;
+            int state = data;
+
+            while (position < length) {
+                char c = html.charAt(position);
+                switch (state) {
+                    case data:
+                        int lessThan = html.indexOf('<', position);
+                        if (lessThan < 0 || lessThan + 1 >= length) {
+                            return length;
+                        }
+                        position = lessThan + 1;
+                        c = html.charAt(position);
+                        if (c == '/') {
+                            int nameEnd = letterEnd(position + 1);
+                            if (nameEnd == position + 1) {
+                                position++;
+                            } else if (isTagNameOf(position + 1, nameEnd, "script") && nameEnd < length) {
+                                if (isEndTagNameEnd(html.charAt(nameEnd))) {
+                                    return endTagEnd(nameEnd);
+                                }
+                                // jSoup eats the character after the name
+                                position = nameEnd + 1;
+                            } else {
+                                position = nameEnd;
+                            }
+                        } else if (c == '!') {
+                            position++;
+                            if (html.startsWith("--", position)) {
+                                position += 2;
+                                state = escapedDashDash;
+                            } else if (html.startsWith("-", position)) {
+                                position++;
+                            }
+                        }
+                        break;
+                    case escaped:
+                    case doubleEscaped:
+                        int dash = html.indexOf('-', position);
+                        int open = html.indexOf('<', position);
+                        if (dash < 0 && open < 0) {
+                            return length;
+                        }
+                        boolean isDash = open < 0 || (dash >= 0 && dash < open);
+                        position = (isDash ? dash : open) + 1;
+                        if (state == escaped) {
+                            state = isDash ? escapedDash : escapedLessThan;
+                        } else {
+                            state = isDash ? doubleEscapedDash : doubleEscapedLessThan;
+                        }
+                        break;
+                    case escapedDash:
+                    case escapedDashDash:
+                        position++;
+                        if (c == '-') {
+                            state = escapedDashDash;
+                        } else if (c == '<') {
+                            state = escapedLessThan;
+                        } else if (c == '>' && state == escapedDashDash) {
+                            state = data;
+                        } else {
+                            state = escaped;
+                        }
+                        break;
+                    case doubleEscapedDash:
+                    case doubleEscapedDashDash:
+                        position++;
+                        if (c == '-') {
+                            state = doubleEscapedDashDash;
+                        } else if (c == '<') {
+                            state = doubleEscapedLessThan;
+                        } else if (c == '>' && state == doubleEscapedDashDash) {
+                            state = data;
+                        } else {
+                            state = doubleEscaped;
+                        }
+                        break;
+                    case escapedLessThan:
+                        state = escaped;
+                        if (isLetter(c)) {
+                            // <script in here means the next </script> doesn't count
+                            int nameEnd = letterEnd(position);
+                            if (nameEnd < length && isEndTagNameEnd(html.charAt(nameEnd))) {
+                                if (html.startsWith("script", position) && nameEnd - position == 6) {
+                                    state = doubleEscaped;
+                                }
+                                position = nameEnd + 1;
+                            } else {
+                                position = nameEnd;
+                            }
+                        } else if (c == '/') {
+                            position++;
+                            int nameEnd = letterEnd(position);
+                            if (nameEnd > position && isTagNameOf(position, nameEnd, "script") && nameEnd < length) {
+                                if (isEndTagNameEnd(html.charAt(nameEnd))) {
+                                    return endTagEnd(nameEnd);
+                                }
+                                position = nameEnd + 1;
+                            } else {
+                                position = nameEnd;
+                            }
+                        }
+                        break;
+                    case doubleEscapedLessThan:
+                        state = doubleEscaped;
+                        if (c == '/') {
+                            position++;
+                            int nameEnd = letterEnd(position);
+                            if (nameEnd < length && isEndTagNameEnd(html.charAt(nameEnd))) {
+                                if (html.startsWith("script", position) && nameEnd - position == 6) {
+                                    state = escaped;
+                                }
+                                position = nameEnd + 1;
+                            } else {
+                                position = nameEnd;
+                            }
+                        }
+                        break;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * @param position right after the <code>&lt;!--</code>
+         * @return where the comment ends, or the end of the page if it doesn't
+         */
+        private int commentEnd(int position) {
+            final int start = 0, startDash = 1, comment = 2, endDash = 3, end = 4, endBang = 5;
+            int state = start;
+
+            while (position < length) {
+                char c = html.charAt(position);
+                switch (state) {
+                    case start:
+                    case startDash:
+                        position++;
+                        if (c == '>') {
+                            return position;
+                        }
+                        // jSoup stays here for any number of dashes, so <!----> isn't over yet
+                        state = c == '-' ? startDash : comment;
+                        break;
+                    case comment:
+                        int dash = html.indexOf('-', position);
+                        if (dash < 0) {
+                            return length;
+                        }
+                        position = dash + 1;
+                        state = endDash;
+                        break;
+                    case endDash:
+                        position++;
+                        state = c == '-' ? end : comment;
+                        break;
+                    case end:
+                        position++;
+                        if (c == '>') {
+                            return position;
+                        }
+                        state = c == '!' ? endBang : c == '-' ? end : comment;
+                        break;
+                    case endBang:
+                        position++;
+                        if (c == '>') {
+                            return position;
+                        }
+                        state = c == '-' ? endDash : comment;
+                        break;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Reads the rest of an end tag, jSoup reads attributes there too
+         *
+         * @param position where the end tag's name ends
+         */
+        private int endTagEnd(int position) {
+            int end = tagEnd(position);
+            return end < 0 ? length : end;
+        }
+
+        /**
+         * @return the position right after the next <code>c</code>, or the end of the page
+         */
+        private int after(char c, int position) {
+            int found = html.indexOf(c, position);
+            return found < 0 ? length : found + 1;
+        }
+
+        private int nameEnd(int position) {
+            while (position < length) {
+                char c = html.charAt(position);
+                if (isWhitespace(c) || c == '/' || c == '>') {
+                    break;
+                }
+                position++;
+            }
+            return position;
+        }
+
+        private int letterEnd(int position) {
+            while (position < length && isLetter(html.charAt(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        /**
+         * @return if the start tag's name is the given one, compared like jSoup does once it lower cases the name
+         */
+        private boolean isNamed(int start, int end, String name) {
+            if (end - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                char c = html.charAt(start + i);
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                if (c != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return if an end tag's name closes the element with the given name
+         */
+        private boolean isTagNameOf(int start, int end, String name) {
+            return end - start == name.length() && html.regionMatches(true, start, name, 0, name.length());
+        }
+
+        private static boolean isEndTagNameEnd(char c) {
+            return isWhitespace(c) || c == '/' || c == '>';
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == ' ';
+        }
+
+        private static boolean isLetter(char c) {
+            return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || Character.isLetter(c);
+        }
+    }
+
+}
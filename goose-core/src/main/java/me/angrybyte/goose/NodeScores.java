@@ -0,0 +1,134 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Element;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Holds the gravity score and the good node count of every node scored during one extraction. Nodes are keyed by identity and the values live
+ * in primitive arrays, so scoring never touches the node attributes and nothing leaks into the DOM handed back to the caller.
+ */
+public class NodeScores {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final IdentityHashMap<Element, Integer> index = new IdentityHashMap<>();
+
+    private Element[] nodes = new Element[INITIAL_CAPACITY];
+    private int[] scores = new int[INITIAL_CAPACITY];
+    private int[] nodeCounts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds a score to the given node, we'll get the current score then add the score we're passing in to the current
+     *
+     * @param node       the node to score
+     * @param addToScore the score to add to the node
+     */
+    public void updateScore(Element node, int addToScore) {
+        // the slot has to be found first, finding it might swap in bigger arrays
+        int slot = slotFor(node);
+        scores[slot] += addToScore;
+    }
+
+    /**
+     * Stores how many decent nodes are under a parent node
+     */
+    public void updateNodeCount(Element node, int addToCount) {
+        int slot = slotFor(node);
+        nodeCounts[slot] += addToCount;
+    }
+
+    /**
+     * Returns the score of this node, or 0 if it was never scored
+     */
+    public int getScore(Element node) {
+        Integer slot = node == null ? null : index.get(node);
+        return slot == null ? 0 : scores[slot];
+    }
+
+    /**
+     * Returns how many decent nodes were counted under this node, or 0 if it was never scored
+     */
+    @SuppressWarnings("unused")
+    public int getNodeCount(Element node) {
+        Integer slot = node == null ? null : index.get(node);
+        return slot == null ? 0 : nodeCounts[slot];
+    }
+
+    /**
+     * @return <code>true</code> if this node was given a score during the extraction
+     */
+    public boolean isScored(Element node) {
+        return node != null && index.containsKey(node);
+    }
+
+    /**
+     * @return how many nodes have been scored so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the scored node at the given position. Nodes are kept in the order they were first scored.
+     */
+    public Element getNode(int position) {
+        return nodes[position];
+    }
+
+    /**
+     * Returns the score of the node at the given position
+     */
+    public int getScoreAt(int position) {
+        return scores[position];
+    }
+
+    /**
+     * Forgets every score, so the nodes can be scored again from scratch
+     */
+    public void clear() {
+        index.clear();
+        Arrays.fill(nodes, 0, size, null);
+        Arrays.fill(scores, 0, size, 0);
+        Arrays.fill(nodeCounts, 0, size, 0);
+        size = 0;
+    }
+
+    private int slotFor(Element node) {
+        Integer slot = index.get(node);
+        if (slot != null) {
+            return slot;
+        }
+
+        if (size == nodes.length) {
+            int capacity = size * 2;
+            Element[] newNodes = new Element[capacity];
+            System.arraycopy(nodes, 0, newNodes, 0, size);
+            nodes = newNodes;
+            int[] newScores = new int[capacity];
+            System.arraycopy(scores, 0, newScores, 0, size);
+            scores = newScores;
+            int[] newCounts = new int[capacity];
+            System.arraycopy(nodeCounts, 0, newCounts, 0, size);
+            nodeCounts = newCounts;
+        }
+
+        nodes[size] = node;
+        index.put(node, size);
+        return size++;
+    }
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+/**
+ * The parts of an extraction that can be left out when the {@link ExtractionBudget} runs out. The article is still usable without them, it
+ * just might miss its top image, some of the text around the top node or its movies.
+ */
+public enum OptionalStep {
+
+    /**
+     * downloading the images around the top node to find the best one
+     */
+    IMAGES,
+
+    /**
+     * pulling the paragraphs next to the top node into it
+     */
+    SIBLINGS,
+
+    /**
+     * looking for embedded movies in the top node
+     */
+    VIDEOS
+
+}
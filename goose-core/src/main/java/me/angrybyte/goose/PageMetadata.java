@@ -0,0 +1,167 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import me.angrybyte.goose.texthelpers.string;
+
+/**
+ * Everything an extraction reads from a page besides its content: the title, the meta and link tags and the tag links. It's all collected in
+ * one walk over the document instead of a selector per field. Each field comes from the first element that matches, the same one
+ * <code>doc.select(...).first()</code> would give, and holds the raw value of its attribute. A field is <code>null</code> if nothing matched.
+ * <p/>
+ * The metadata is collected before the cleaner gets to the document, so it doesn't matter what the cleaner removes.
+ */
+public class PageMetadata {
+
+    private String title;
+    private String description;
+    private String keywords;
+    private String canonicalLink;
+    private String openGraphImage;
+    private String linkImage;
+    private Set<String> tags;
+
+    private PageMetadata() {}
+
+    /**
+     * Walks the whole document once and picks up all the fields
+     */
+    public static PageMetadata collect(Document doc) {
+        final PageMetadata metadata = new PageMetadata();
+        doc.traverse(metadata.new Collector());
+        if (metadata.tags == null) {
+            metadata.tags = new HashSet<>(0);
+        }
+        return metadata;
+    }
+
+    /**
+     * @return the text of the first <code>&lt;title&gt;</code>
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return the content of <code>meta[name=description]</code>
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return the content of <code>meta[name=keywords]</code>
+     */
+    public String getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * @return the href of <code>link[rel=canonical]</code>
+     */
+    public String getCanonicalLink() {
+        return canonicalLink;
+    }
+
+    /**
+     * @return the content of <code>meta[property~=og:image]</code>
+     */
+    public String getOpenGraphImage() {
+        return openGraphImage;
+    }
+
+    /**
+     * @return the href of <code>link[rel~=image_src]</code>
+     */
+    public String getLinkImage() {
+        return linkImage;
+    }
+
+    /**
+     * @return the text of all the <code>a[rel=tag], a[href*=/tag/]</code> links that have any, never <code>null</code>
+     */
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Matches the elements the same way the old selectors did: <code>=</code> ignores case and surrounding whitespace, <code>*=</code> ignores
+     * case and <code>~=</code> looks for the text anywhere in the value
+     */
+    private class Collector implements NodeVisitor {
+
+        @Override
+        public void head(Node node, int depth) {
+            if (!(node instanceof Element)) {
+                return;
+            }
+
+            Element element = (Element) node;
+            switch (element.tagName()) {
+                case "title":
+                    if (title == null) {
+                        title = element.text();
+                    }
+                    break;
+                case "meta":
+                    String name = element.attr("name").trim();
+                    if (description == null && name.equalsIgnoreCase("description")) {
+                        description = element.attr("content");
+                    } else if (keywords == null && name.equalsIgnoreCase("keywords")) {
+                        keywords = element.attr("content");
+                    }
+                    if (openGraphImage == null && element.attr("property").contains("og:image")) {
+                        openGraphImage = element.attr("content");
+                    }
+                    break;
+                case "link":
+                    String rel = element.attr("rel");
+                    if (canonicalLink == null && rel.trim().equalsIgnoreCase("canonical")) {
+                        canonicalLink = element.attr("href");
+                    }
+                    if (linkImage == null && rel.contains("image_src")) {
+                        linkImage = element.attr("href");
+                    }
+                    break;
+                case "a":
+                    if (element.attr("rel").trim().equalsIgnoreCase("tag")
+                            || element.attr("href").toLowerCase(Locale.ENGLISH).contains("/tag/")) {
+                        addTag(element.text());
+                    }
+                    break;
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {}
+
+        private void addTag(String tag) {
+            if (string.isNullOrEmpty(tag)) {
+                return;
+            }
+            if (tags == null) {
+                tags = new HashSet<>();
+            }
+            tags.add(tag);
+        }
+    }
+
+}
@@ -11,14 +11,14 @@
 
 package me.angrybyte.goose;
 
-import android.annotation.SuppressLint;
-
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
+import me.angrybyte.goose.network.HtmlBytes;
+
 /**
  * User: jim plush Date: 12/16/10
  */
@@ -29,8 +29,14 @@ import java.util.Calendar;
  */
 public class ParseWrapper {
 
-    @SuppressLint("SimpleDateFormat") // this is a web scrape, no localization standard
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    // SimpleDateFormat is not thread safe, so each thread gets its own
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        // this is a web scrape, no localization standard
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        }
+    };
 
     public String status = "notStarted";
 
@@ -38,12 +44,23 @@ public class ParseWrapper {
     public String startTime;
 
     public Document parse(String html, String url) {
+        return parse(html, url, null);
+    }
+
+    /**
+     * Parses the html once the pruner cut the scripts, styles and comments out of it, or all of it if the pruner is <code>null</code>
+     */
+    public Document parse(String html, String url, HtmlPruner pruner) {
+        if (pruner != null) {
+            html = pruner.prune(html);
+        }
         this.url = url;
         this.status = "Started";
         this.startTime = now();
         Document doc;
         try {
-            doc = Jsoup.parse(html);
+            // the url becomes the location of the document, so whoever gets only the document still knows where it came from
+            doc = Jsoup.parse(html, url == null ? "" : url);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -51,9 +68,20 @@ public class ParseWrapper {
         return doc;
     }
 
+    /**
+     * Parses html that came in as bytes, decoded with the charset that was found for it
+     */
+    public Document parse(HtmlBytes html, String url) {
+        return parse(html.decode(), url, null);
+    }
+
+    public Document parse(HtmlBytes html, String url, HtmlPruner pruner) {
+        return parse(html.decode(), url, pruner);
+    }
+
     public static String now() {
         Calendar cal = Calendar.getInstance();
-        return DATE_FORMAT.format(cal.getTime());
+        return DATE_FORMAT.get().format(cal.getTime());
     }
 
 }
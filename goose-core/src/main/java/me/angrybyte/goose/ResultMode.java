@@ -0,0 +1,95 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+
+import me.angrybyte.goose.images.Image;
+
+/**
+ * How much of the page an {@link Article} holds on to once the extraction is done. Every node of the page points to its parent, so keeping
+ * just the top node keeps the whole parsed document alive. That's no problem for one article, but it adds up quickly when thousands of them
+ * are kept around.
+ */
+public enum ResultMode {
+
+    /**
+     * Keeps everything: the raw html, and the top node, movies and top image node, all still attached to the document
+     */
+    FULL {
+        @Override
+        void apply(Article article) {}
+    },
+
+    /**
+     * Drops the raw html and replaces the top node, movies and top image node with copies that are cut loose from the document
+     */
+    DETACHED {
+        @Override
+        void apply(Article article) {
+            article.setRawHtml(null);
+            article.setTopNode(detach(article.getTopNode()));
+
+            ArrayList<Element> movies = article.getMovies();
+            if (movies != null) {
+                ArrayList<Element> detached = new ArrayList<>(movies.size());
+                for (Element movie : movies) {
+                    detached.add(detach(movie));
+                }
+                article.setMovies(detached);
+            }
+
+            Image topImage = article.getTopImage();
+            if (topImage != null) {
+                topImage.setTopImageNode(detach(topImage.getTopImageNode()));
+            }
+        }
+    },
+
+    /**
+     * Keeps only the extracted values: the text, title, meta fields, tags, image url and movie urls. There's no html and no nodes.
+     */
+    LEAN {
+        @Override
+        void apply(Article article) {
+            article.setRawHtml(null);
+            article.setTopNode(null);
+            article.setMovies(null);
+
+            Image topImage = article.getTopImage();
+            if (topImage != null) {
+                topImage.setTopImageNode(null);
+            }
+        }
+    };
+
+    /**
+     * Trims the finished article down to what this mode keeps
+     */
+    abstract void apply(Article article);
+
+    private static Element detach(Element element) {
+        if (element == null) {
+            return null;
+        }
+
+        // a jsoup clone() copies every node's attributes and child list at full size and ends up bigger than the original,
+        // parsing the element's html again gives a copy that's as compact as the parser makes it
+        Element copy = Jsoup.parseBodyFragment(element.outerHtml(), element.baseUri()).body().child(0);
+        copy.remove();
+        return copy;
+    }
+
+}
@@ -0,0 +1,34 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.cache;
+
+import me.angrybyte.goose.Article;
+
+/**
+ * Keeps finished articles around so a page that hasn't changed since the last time doesn't have to be parsed and scored again. The keys are
+ * made up by the {@link me.angrybyte.goose.ContentExtractor} from the url and a hash of the html, so a changed page always misses. Only the
+ * extracted values are cached: the articles that come back have no raw html and no nodes, the same as with
+ * {@link me.angrybyte.goose.ResultMode#LEAN}. It's shared between threads, so implementations must be thread safe.
+ */
+public interface ArticleCache {
+
+    /**
+     * @return a fresh copy of the cached article, or <code>null</code> if there's none or it's too old
+     */
+    Article get(String key);
+
+    /**
+     * Remembers the extracted values of the article, the article itself can be changed afterwards without affecting the cache
+     */
+    void put(String key, Article article);
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import me.angrybyte.goose.Article;
+import me.angrybyte.goose.images.Image;
+
+/**
+ * Turns the extracted values of an {@link Article} into bytes and back. The same bytes are kept in memory and written to disk.
+ */
+final class ArticleCodec {
+
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ArticleCodec() {}
+
+    static byte[] encode(Article article) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(VERSION);
+        writeString(out, article.getTitle());
+        out.writeLong(article.getPublishDate() == null ? Long.MIN_VALUE : article.getPublishDate().getTime());
+        writeString(out, article.getMetaDescription());
+        writeString(out, article.getMetaKeywords());
+        writeString(out, article.getCanonicalLink());
+        writeString(out, article.getCleanedArticleText());
+        writeStrings(out, article.getTags());
+        writeStrings(out, article.getImageCandidates());
+        writeStrings(out, article.getMovieUrls());
+
+        Map<String, String> additionalData = article.getAdditionalData();
+        out.writeInt(additionalData == null ? -1 : additionalData.size());
+        if (additionalData != null) {
+            for (Map.Entry<String, String> entry : additionalData.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+
+        Image image = article.getTopImage();
+        out.writeBoolean(image != null);
+        if (image != null) {
+            writeString(out, image.getImageSrc());
+            out.writeDouble(image.getConfidenceScore());
+            writeString(out, image.getImageExtractionType());
+            out.writeInt(image.getBytes());
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the article, or <code>null</code> if the bytes were written by a different version
+     */
+    static Article decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+
+        Article article = new Article();
+        article.setTitle(readString(in));
+        long publishDate = in.readLong();
+        article.setPublishDate(publishDate == Long.MIN_VALUE ? null : new Date(publishDate));
+        article.setMetaDescription(readString(in));
+        article.setMetaKeywords(readString(in));
+        article.setCanonicalLink(readString(in));
+        article.setDomain(article.getCanonicalLink());
+        article.setCleanedArticleText(readString(in));
+
+        ArrayList<String> tags = readStrings(in);
+        article.setTags(tags == null ? null : new HashSet<>(tags));
+        ArrayList<String> imageCandidates = readStrings(in);
+        article.setImageCandidates(imageCandidates == null ? new ArrayList<String>() : imageCandidates);
+        ArrayList<String> movieUrls = readStrings(in);
+        article.setMovieUrls(movieUrls == null ? new ArrayList<String>() : movieUrls);
+
+        int additionalDataSize = in.readInt();
+        if (additionalDataSize >= 0) {
+            Map<String, String> additionalData = new HashMap<>(additionalDataSize * 2);
+            for (int i = 0; i < additionalDataSize; i++) {
+                additionalData.put(readString(in), readString(in));
+            }
+            article.setAdditionalData(additionalData);
+        }
+
+        if (in.readBoolean()) {
+            Image image = new Image();
+            image.setImageSrc(readString(in));
+            image.setConfidenceScore(in.readDouble());
+            image.setImageExtractionType(readString(in));
+            image.setBytes(in.readInt());
+            article.setTopImage(image);
+        }
+        return article;
+    }
+
+    // writeUTF() can't take more than 64k, article texts can be longer than that
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values == null ? -1 : values.size());
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static ArrayList<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        ArrayList<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+}
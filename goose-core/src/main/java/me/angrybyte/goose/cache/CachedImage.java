@@ -0,0 +1,80 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cache;
+
+import me.angrybyte.goose.images.ImageDetails;
+
+/**
+ * What one request for an image told us: the length and the content type the server sent, and the format and the dimensions from the
+ * header of the image, if we got that far.
+ */
+public final class CachedImage {
+
+    private final int contentLength;
+    private final String contentType;
+    private final int width;
+    private final int height;
+    private final String mimeType;
+
+    /**
+     * @param contentLength the length the server said the image has, -1 if it didn't
+     * @param contentType   the content type the server sent, or <code>null</code>
+     * @param details       the format and the dimensions, or <code>null</code> if we don't know them
+     */
+    public CachedImage(int contentLength, String contentType, ImageDetails details) {
+        this(contentLength, contentType, details == null ? 0 : details.getWidth(), details == null ? 0 : details.getHeight(),
+                details == null ? null : details.getMimeType());
+    }
+
+    CachedImage(int contentLength, String contentType, int width, int height, String mimeType) {
+        this.contentLength = contentLength;
+        this.contentType = contentType;
+        this.width = width;
+        this.height = height;
+        this.mimeType = mimeType;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return a fresh copy of the format and the dimensions, or <code>null</code> if we don't know them
+     */
+    public ImageDetails getDetails() {
+        if (mimeType == null) {
+            return null;
+        }
+
+        ImageDetails details = new ImageDetails();
+        details.setWidth(width);
+        details.setHeight(height);
+        details.setMimeType(mimeType);
+        return details;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    String getMimeType() {
+        return mimeType;
+    }
+
+}
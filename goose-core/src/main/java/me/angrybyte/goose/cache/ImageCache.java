@@ -0,0 +1,29 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cache;
+
+/**
+ * Remembers what we found out about images, so an image that shows up on a lot of pages (a logo, a photo that's shared around) is only
+ * requested once. The keys are the absolute image urls. It's shared between threads, so implementations must be thread safe.
+ */
+public interface ImageCache {
+
+    /**
+     * @return what we found out about the image last time, or <code>null</code> if there's nothing or it's too old
+     */
+    CachedImage get(String url);
+
+    /**
+     * Remembers what we found out about the image
+     */
+    void put(String url, CachedImage image);
+
+}
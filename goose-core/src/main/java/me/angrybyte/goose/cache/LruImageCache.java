@@ -0,0 +1,333 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import me.angrybyte.goose.GooseLog;
+
+/**
+ * An {@link ImageCache} that keeps a bounded number of images in an in-memory LRU map, and optionally a journal on disk so they outlive the
+ * process. Images older than the time to live are treated as missing. Every change and every hit is appended to the journal, and the journal
+ * is read back once when the cache is created, so the order of use survives a restart and the directory is never scanned. Once the journal
+ * holds a lot more records than there are images, it's rewritten with just the live ones. The images are kept under a hash of their url.
+ */
+public class LruImageCache implements ImageCache, Closeable {
+
+    private static final String TAG = LruImageCache.class.getSimpleName();
+    private static final String JOURNAL = "images.journal";
+    private static final int VERSION = 1;
+
+    private static final int PUT = 1;
+    private static final int READ = 2;
+    private static final int REMOVE = 3;
+
+    /**
+     * the journal is rewritten once it has this many more records than twice the images, so a small cache isn't rewritten all the time
+     */
+    private static final int REWRITE_SLACK = 2000;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final File journalFile;
+
+    private final LinkedHashMap<String, CacheEntry> entries;
+
+    // the journal is only touched while holding the lock on the entries, it's null if there's no directory or writing to it failed
+    private DataOutputStream journal;
+    private int journalRecords;
+
+    /**
+     * A cache that's kept in memory only
+     *
+     * @param maxEntries how many images to remember
+     * @param ttlMillis  how long an image stays valid, 0 to keep it until it's pushed out
+     */
+    public LruImageCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, null);
+    }
+
+    /**
+     * @param maxEntries how many images to remember
+     * @param ttlMillis  how long an image stays valid, 0 to keep it until it's pushed out
+     * @param directory  where to keep the journal, it's created if needed
+     */
+    public LruImageCache(final int maxEntries, long ttlMillis, File directory) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("maxEntries must be positive!");
+        if (ttlMillis < 0)
+            throw new IllegalArgumentException("ttlMillis must not be negative!");
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+            throw new IllegalArgumentException("Can't create " + directory);
+
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.journalFile = directory == null ? null : new File(directory, JOURNAL);
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > LruImageCache.this.maxEntries) {
+                    append(REMOVE, eldest.getKey(), null);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        if (journalFile != null) {
+            synchronized (entries) {
+                readJournal();
+            }
+        }
+    }
+
+    @Override
+    public CachedImage get(String url) {
+        String key = hash(url);
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            if (isExpired(entry.storedAt)) {
+                entries.remove(key);
+                append(REMOVE, key, null);
+                entry = null;
+            } else {
+                append(READ, key, null);
+            }
+            rewriteIfNeeded();
+            return entry == null ? null : entry.image;
+        }
+    }
+
+    @Override
+    public void put(String url, CachedImage image) {
+        String key = hash(url);
+        CacheEntry entry = new CacheEntry(image, System.currentTimeMillis());
+        synchronized (entries) {
+            // the journal has to say it's there before the eldest is pushed out
+            append(PUT, key, entry);
+            entries.put(key, entry);
+            rewriteIfNeeded();
+        }
+    }
+
+    /**
+     * Closes the journal, the cache goes on working in memory only
+     */
+    @Override
+    public void close() {
+        synchronized (entries) {
+            close(journal);
+            journal = null;
+        }
+    }
+
+    private boolean isExpired(long storedAt) {
+        return ttlMillis > 0 && System.currentTimeMillis() - storedAt > ttlMillis;
+    }
+
+    private void readJournal() {
+        boolean intact = false;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+            if (in.readInt() != VERSION) {
+                throw new IOException("Unknown journal version");
+            }
+
+            // the order of the records is the order of use, so replaying them brings back the order of the map too
+            int type;
+            while ((type = in.read()) != -1) {
+                String key = in.readUTF();
+                switch (type) {
+                    case PUT:
+                        CacheEntry entry = readEntry(in);
+                        if (isExpired(entry.storedAt)) {
+                            entries.remove(key);
+                        } else {
+                            entries.put(key, entry);
+                        }
+                        break;
+                    case READ:
+                        entries.get(key);
+                        break;
+                    case REMOVE:
+                        entries.remove(key);
+                        break;
+                    default:
+                        throw new IOException("Unknown journal record " + type);
+                }
+                journalRecords++;
+            }
+            intact = true;
+        } catch (EOFException e) {
+            // a record that was cut off by a crash, everything before it is fine
+            GooseLog.w(TAG, "The image journal ends in the middle of a record");
+        } catch (IOException e) {
+            if (journalFile.exists()) {
+                GooseLog.e(TAG, "Can't read " + journalFile, e);
+            }
+        } finally {
+            close(in);
+        }
+
+        if (!intact || journalRecords > 2 * entries.size() + REWRITE_SLACK) {
+            rewriteJournal();
+            return;
+        }
+
+        try {
+            journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+        } catch (IOException e) {
+            GooseLog.e(TAG, "Can't open " + journalFile, e);
+        }
+    }
+
+    private void rewriteIfNeeded() {
+        if (journal != null && journalRecords > 2 * entries.size() + REWRITE_SLACK) {
+            rewriteJournal();
+        }
+    }
+
+    /**
+     * Writes a new journal with one record for each live image, least recently used first, and swaps it in for the old one
+     */
+    private void rewriteJournal() {
+        close(journal);
+        journal = null;
+
+        File temp = new File(journalFile.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(VERSION);
+            for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+                writeRecord(out, PUT, entry.getKey(), entry.getValue());
+            }
+            out.close();
+            out = null;
+
+            if (!temp.renameTo(journalFile) && !(journalFile.delete() && temp.renameTo(journalFile))) {
+                throw new IOException("Can't replace " + journalFile);
+            }
+            journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+            journalRecords = entries.size();
+        } catch (IOException e) {
+            GooseLog.e(TAG, "Can't write " + journalFile, e);
+        } finally {
+            close(out);
+        }
+    }
+
+    private void append(int type, String key, CacheEntry entry) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            writeRecord(journal, type, key, entry);
+            journal.flush();
+            journalRecords++;
+        } catch (IOException e) {
+            GooseLog.e(TAG, "Can't write " + journalFile, e);
+            close(journal);
+            journal = null;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, int type, String key, CacheEntry entry) throws IOException {
+        out.writeByte(type);
+        out.writeUTF(key);
+        if (type == PUT) {
+            CachedImage image = entry.image;
+            out.writeLong(entry.storedAt);
+            out.writeInt(image.getContentLength());
+            writeNullableString(out, image.getContentType());
+            writeNullableString(out, image.getMimeType());
+            out.writeInt(image.getWidth());
+            out.writeInt(image.getHeight());
+        }
+    }
+
+    private static CacheEntry readEntry(DataInputStream in) throws IOException {
+        long storedAt = in.readLong();
+        int contentLength = in.readInt();
+        String contentType = readNullableString(in);
+        String mimeType = readNullableString(in);
+        int width = in.readInt();
+        int height = in.readInt();
+        return new CacheEntry(new CachedImage(contentLength, contentType, width, height, mimeType), storedAt);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * @return 32 lower case hex characters
+     */
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static final class CacheEntry {
+
+        final CachedImage image;
+        final long storedAt;
+
+        CacheEntry(CachedImage image, long storedAt) {
+            this.image = image;
+            this.storedAt = storedAt;
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.cache;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import me.angrybyte.goose.Article;
+import me.angrybyte.goose.GooseLog;
+
+/**
+ * An {@link ArticleCache} with two tiers: a bounded in-memory LRU map, and optionally a directory on disk that outlives the process. Entries
+ * older than the time to live are treated as missing in both tiers. A disk hit is copied back into memory. Each file starts with the time it
+ * was stored, and its last modified time is bumped whenever it's read, so the disk tier is kept under its byte limit by deleting the files
+ * that were used the longest time ago.
+ */
+public class TieredArticleCache implements ArticleCache {
+
+    private static final String TAG = TieredArticleCache.class.getSimpleName();
+    private static final String SUFFIX = ".article";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final File directory;
+    private final long maxDiskBytes;
+
+    private final LinkedHashMap<String, CacheEntry> memory;
+
+    // what we think the directory holds, only touched while holding the lock on the directory
+    private long diskBytes = -1;
+
+    /**
+     * A cache that's kept in memory only
+     *
+     * @param maxEntries how many articles to keep in memory
+     * @param ttlMillis  how long an article stays valid, 0 to keep it until it's pushed out
+     */
+    public TieredArticleCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, null, 0);
+    }
+
+    /**
+     * @param maxEntries   how many articles to keep in memory
+     * @param ttlMillis    how long an article stays valid, 0 to keep it until it's pushed out
+     * @param directory    where to keep the articles on disk, it's created if needed
+     * @param maxDiskBytes how big the directory may get
+     */
+    public TieredArticleCache(final int maxEntries, long ttlMillis, File directory, long maxDiskBytes) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("maxEntries must be positive!");
+        if (ttlMillis < 0)
+            throw new IllegalArgumentException("ttlMillis must not be negative!");
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+            throw new IllegalArgumentException("Can't create " + directory);
+
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > TieredArticleCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Article get(String key) {
+        CacheEntry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+            if (entry != null && isExpired(entry.storedAt)) {
+                memory.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null && directory != null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+            }
+        }
+
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            return ArticleCodec.decode(entry.data);
+        } catch (IOException e) {
+            GooseLog.e(TAG, "Can't read the cached article for " + key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, Article article) {
+        CacheEntry entry;
+        try {
+            entry = new CacheEntry(ArticleCodec.encode(article), System.currentTimeMillis());
+        } catch (IOException e) {
+            GooseLog.e(TAG, "Can't cache the article for " + key, e);
+            return;
+        }
+
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+
+        if (directory != null) {
+            writeToDisk(key, entry);
+        }
+    }
+
+    private boolean isExpired(long storedAt) {
+        return ttlMillis > 0 && System.currentTimeMillis() - storedAt > ttlMillis;
+    }
+
+    private CacheEntry readFromDisk(String key) {
+        File file = new File(directory, key + SUFFIX);
+        synchronized (directory) {
+            if (!file.isFile()) {
+                return null;
+            }
+
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new FileInputStream(file));
+                long storedAt = in.readLong();
+                if (isExpired(storedAt)) {
+                    close(in);
+                    delete(file);
+                    return null;
+                }
+
+                byte[] data = new byte[(int) file.length() - 8];
+                in.readFully(data);
+                // reading counts as using it, the least recently used files go first
+                // noinspection ResultOfMethodCallIgnored
+                file.setLastModified(System.currentTimeMillis());
+                return new CacheEntry(data, storedAt);
+            } catch (IOException e) {
+                GooseLog.e(TAG, "Can't read " + file, e);
+                close(in);
+                delete(file);
+                return null;
+            } finally {
+                close(in);
+            }
+        }
+    }
+
+    private void writeToDisk(String key, CacheEntry entry) {
+        File file = new File(directory, key + SUFFIX);
+        synchronized (directory) {
+            if (diskBytes < 0) {
+                diskBytes = sizeOf(listFiles());
+            }
+            if (file.isFile()) {
+                diskBytes -= file.length();
+            }
+
+            DataOutputStream out = null;
+            try {
+                out = new DataOutputStream(new FileOutputStream(file));
+                out.writeLong(entry.storedAt);
+                out.write(entry.data);
+                out.flush();
+            } catch (IOException e) {
+                GooseLog.e(TAG, "Can't write " + file, e);
+                close(out);
+                delete(file);
+                return;
+            } finally {
+                close(out);
+            }
+
+            diskBytes += file.length();
+            if (maxDiskBytes > 0 && diskBytes > maxDiskBytes) {
+                evict();
+            }
+        }
+    }
+
+    private void evict() {
+        File[] files = listFiles();
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long firstUse = first.lastModified();
+                long secondUse = second.lastModified();
+                return firstUse < secondUse ? -1 : (firstUse == secondUse ? 0 : 1);
+            }
+        });
+
+        diskBytes = sizeOf(files);
+        for (File file : files) {
+            if (diskBytes <= maxDiskBytes) {
+                break;
+            }
+            long length = file.length();
+            if (delete(file)) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    private File[] listFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                files[count++] = file;
+            }
+        }
+        return Arrays.copyOf(files, count);
+    }
+
+    private static long sizeOf(File[] files) {
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static boolean delete(File file) {
+        return file.delete() || !file.exists();
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static final class CacheEntry {
+
+        final byte[] data;
+        final long storedAt;
+
+        CacheEntry(byte[] data, long storedAt) {
+            this.data = data;
+            this.storedAt = storedAt;
+        }
+    }
+
+}
@@ -0,0 +1,380 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.cleaners;
+
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import me.angrybyte.goose.rules.RuleAction;
+import me.angrybyte.goose.rules.RulePack;
+import me.angrybyte.goose.rules.RulePacks;
+import me.angrybyte.goose.texthelpers.ReplaceSequence;
+import me.angrybyte.goose.texthelpers.RuleMatcher;
+import me.angrybyte.goose.texthelpers.string;
+
+/**
+ * User: Jim Plush Date: 12/18/10 This class is used to pre clean documents(webpages) We go through 3 phases of parsing a website cleaning
+ * -> extraction -> output formatter This is the cleaning phase that will try to remove comments, known ad junk, social networking divs
+ * other things that are known to not be content related.
+ */
+
+public class DefaultDocumentCleaner implements DocumentCleaner {
+
+    /*
+     * This regex is used to remove undesirable nodes from our doc indicate that something maybe isn't content but more of a comment, footer
+     * or some other undesirable node
+     */
+    private static final String regExRemoveNodes = ("^side$|combx|retweet|menucontainer|navbar|comment|PopularQuestions|contact|foot|footer|Footer"
+            + "|footnote|cnn_strycaptiontxt|links|meta$|scroll|shoutbox|sponsor")
+            + "|tags|socialnetworking|socialNetworking|cnnStryHghLght|cnn_stryspcvbx|^inset$|pagetools|post-attributes|welcome_form|contentTools2"
+            + "|the_answers"
+            + "|communitypromo|subscribe|vcard|articleheadings|date|print|popup|author-dropdown|tools|socialtools|byline|konafilter|KonaFilter"
+            + "|breadcrumbs|^fn$|wp-caption-text";
+
+    /**
+     * regex to detect if there are block level elements inside of a div element
+     */
+    private static final Pattern divToPElementsPattern = Pattern.compile("<(a|blockquote|dl|div|img|ol|p|pre|table|ul)");
+
+    private static final ReplaceSequence tabsAndNewLinesReplcesments = ReplaceSequence.create("\n", "\n\n").append("\t").append("^\\s+$");
+    private static final Pattern entriesPattern = Pattern.compile("^[^entry-]more.*$");
+    private static final Pattern facebookPattern = Pattern.compile("[^-]facebook");
+    private static final Pattern twitterPattern = Pattern.compile("[^-]twitter");
+
+    // the groups of rules, nodes in the body are removed for a naughty id, class or name, and anywhere for an id or class that matches a remove rule
+    private static final int NAUGHTY = 1;
+    private static final int REMOVE = 1 << 1;
+    private static final int DROP_CAP = 1 << 2;
+
+    /**
+     * all the rules that look at ids, classes and names, a value is scanned once for all of them
+     */
+    private static final RuleMatcher rules = new RuleMatcher.Builder()
+            .addAlternatives(NAUGHTY, regExRemoveNodes)
+            // remove twitter and facebook nodes, mashable has f'd up class names for this
+            .add(REMOVE, "^caption$")
+            .add(REMOVE, " google ")
+            .addPattern(REMOVE, "more", entriesPattern)
+            .addPattern(REMOVE, "facebook", facebookPattern)
+            .addPattern(REMOVE, "twitter", twitterPattern)
+            // those css drop caps where they put the first letter in big text in the 1st paragraph
+            .addAlternatives(DROP_CAP, "dropcap|drop_cap")
+            .build();
+
+    private final RulePacks rulePacks;
+
+    /**
+     * Cleans with the rule packs that come with goose
+     */
+    public DefaultDocumentCleaner() {
+        this(new RulePacks());
+    }
+
+    /**
+     * @param rulePacks the site specific rules, looked up by the location of each document
+     */
+    public DefaultDocumentCleaner(RulePacks rulePacks) {
+        if (rulePacks == null)
+            throw new IllegalArgumentException("rulePacks must not be null!");
+        this.rulePacks = rulePacks;
+    }
+
+    /**
+     * Every rule that removes or flattens nodes is applied in a single walk over the document, parents before their children. That gives the
+     * same result as running the rules one after the other over the whole document, which is what this used to do: a node that one rule
+     * removes is gone for the rules after it, and it doesn't matter if its children would have been removed by an earlier rule. The divs are
+     * collected along the way, then the divs and the spans are turned into paragraphs. The rules from the site's pack go first.
+     */
+    public Document clean(Document doc) {
+        RulePack siteRules = rulePacks.forUrl(doc.location());
+        ArrayList<Element> divs = new ArrayList<>();
+        removeBadNodes(doc, siteRules.hasCleaningRules() ? siteRules : null, divs);
+
+        // turn any divs that aren't used as true layout items with block level elements inside them into paragraph tags
+        convertDivsToParagraphs(doc, divs);
+        convertDivsToParagraphs(doc, doc.getElementsByTag("span"));
+
+        return doc;
+    }
+
+    /**
+     * Walks the document and removes every node that one of the rules doesn't like, without walking into the removed nodes
+     *
+     * @param siteRules the rules of the site's pack, <code>null</code> if it has none for cleaning
+     * @param divs gets all the divs that are left, in document order
+     */
+    private void removeBadNodes(Document doc, RulePack siteRules, ArrayList<Element> divs) {
+        Element body = doc.body();
+        // only remove the naughty nodes WITHIN the body to avoid removing the body itself
+        int bodyDepth = Integer.MAX_VALUE;
+        int depth = 0;
+        Node node = doc;
+
+        while (node != null) {
+            Node parent = node.parentNode();
+            Node next = node.nextSibling();
+            boolean inBody = depth > bodyDepth;
+
+            RuleAction action = siteRules != null && inBody && node instanceof Element ? siteRules.getCleaningAction((Element) node) : null;
+            if (action == RuleAction.UNWRAP && node.childNodeSize() > 0) {
+                // the children take the node's place, and they're walked instead of it
+                Node firstChild = node.childNode(0);
+                node.unwrap();
+                node = firstChild;
+                continue;
+            }
+
+            boolean kept;
+            if (action != null) {
+                node.remove();
+                kept = false;
+            } else {
+                kept = !(node instanceof Element) || node == doc || cleanNode((Element) node, inBody, divs);
+            }
+
+            if (kept && node.childNodeSize() > 0) {
+                if (node == body) {
+                    bodyDepth = depth;
+                }
+                node = node.childNode(0);
+                depth++;
+                continue;
+            }
+
+            // no children to look at, so move on to the next sibling, or to the next sibling of the closest parent that has one
+            if (kept) {
+                next = node.nextSibling();
+            }
+            while (next == null && parent != null && depth > 0) {
+                depth--;
+                if (parent == body) {
+                    bodyDepth = Integer.MAX_VALUE;
+                }
+                next = parent.nextSibling();
+                parent = parent.parentNode();
+            }
+            node = depth > 0 ? next : null;
+        }
+    }
+
+    /**
+     * Applies the rules to one node, in the order they used to run
+     *
+     * @return <code>true</code> if the node is still in the document
+     */
+    private boolean cleanNode(Element node, boolean inBody, ArrayList<Element> divs) {
+        String tagName = node.tagName();
+
+        // replaces <em> tags with text nodes
+        if (tagName.equals("em")) {
+            if (node.getElementsByTag("img").size() == 0) {
+                node.replaceWith(new TextNode(node.text(), node.baseUri()));
+                return false;
+            }
+        }
+
+        if (tagName.equals("script") || tagName.equals("style")) {
+            node.remove();
+            return false;
+        }
+
+        int classRules = rules.match(node.attr("class"));
+
+        // remove those css drop caps where they put the first letter in big text in the 1st paragraph
+        if (tagName.equals("span") && (classRules & DROP_CAP) != 0) {
+            // the <em> tags in it were text already by the time this used to run
+            for (Element em : node.getElementsByTag("em")) {
+                if (em.getElementsByTag("img").size() == 0) {
+                    em.replaceWith(new TextNode(em.text(), em.baseUri()));
+                }
+            }
+            node.replaceWith(new TextNode(node.text(), node.baseUri()));
+            return false;
+        }
+
+        int idRules = rules.match(node.attr("id"));
+
+        // star magazine puts shit on name tags instead of class or id
+        if (inBody && ((idRules | classRules) & NAUGHTY) != 0 || inBody && (rules.match(node.attr("name")) & NAUGHTY) != 0) {
+            node.remove();
+            return false;
+        }
+
+        // remove twitter and facebook nodes, mashable has f'd up class names for this
+        if (((idRules | classRules) & REMOVE) != 0) {
+            node.remove();
+            return false;
+        }
+
+        if (tagName.equals("div")) {
+            divs.add(node);
+        }
+        return true;
+    }
+
+    /**
+     * Turns the divs (or spans) that have no block level elements inside them into paragraphs, and gathers the loose text of the others into a
+     * new paragraph at their start. Existing child nodes are moved instead of being written out as html and parsed again, and whether an element
+     * has block level elements inside is remembered for every element on the way, so each node is looked at about once no matter how deeply the
+     * divs are nested. Since nothing is parsed again, block elements inside the links copied into the new paragraph stay inside them.
+     */
+    private void convertDivsToParagraphs(Document doc, List<Element> divs) {
+        IdentityHashMap<Element, Boolean> blockContent = new IdentityHashMap<>();
+        // the content of a converted element was already converted, along with the elements in it that are still ahead of us
+        Element converted = null;
+
+        for (Element div : divs) {
+            if (converted != null) {
+                if (isInside(div, converted)) {
+                    continue;
+                }
+                converted = null;
+            }
+
+            try { // this try catches a NPE, so it will just continue when it happens
+                if (!hasBlockContent(div, blockContent)) {
+                    Element newNode = doc.createElement("p");
+                    newNode.insertChildren(0, div.childNodes());
+                    div.replaceWith(newNode);
+                    converted = newNode;
+                } else {
+                    // Try to convert any div with just text inside it to a paragraph so it can be counted as text, otherwise it would be ignored
+                    // example <div>This is some text in a div</div> should be <div><p>this is some text in a div</p></div>
+
+                    // create a master text node to hold all the child node texts so that  links that were replaced with text notes
+                    // don't become their own paragraphs
+                    Element newPara = doc.createElement("p");
+                    StringBuilder replacementText = new StringBuilder();
+                    ArrayList<Node> nodesToRemove = new ArrayList<>();
+
+                    for (Node kid : div.childNodes()) {
+                        if (kid instanceof TextNode) {
+                            String text = ((TextNode) kid).getWholeText();
+                            if (string.isNullOrEmpty(text)) {
+                                continue;
+                            }
+
+                            //clean up text from tabs and newlines
+                            text = tabsAndNewLinesReplcesments.replaceAll(text);
+
+                            if (text.length() > 1) {
+                                // check for siblings that might be links that we want to include in our new node
+                                Node previousSib = kid.previousSibling();
+                                if (previousSib != null && previousSib.nodeName().equals("a")) {
+                                    appendText(newPara, replacementText);
+                                    newPara.appendChild(previousSib.clone());
+                                }
+                                replacementText.append(text);
+                                nodesToRemove.add(kid);
+                            }
+                        }
+                    }
+
+                    // replace div's text with the new master paragraph that contains the sum of all the little text nodes
+                    appendText(newPara, replacementText);
+                    div.prependChild(newPara);
+
+                    for (Node n : nodesToRemove) {
+                        n.remove();
+                    }
+                }
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Moves the gathered text into the paragraph as a single text node
+     */
+    private static void appendText(Element paragraph, StringBuilder text) {
+        if (text.length() > 0) {
+            paragraph.appendChild(new TextNode(text.toString(), paragraph.baseUri()));
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * Tells if there's anything in the element that {@link #divToPElementsPattern} would find in its html: a block level tag (or one that starts
+     * like one), or a comment, data or attribute that has such a tag written in it
+     *
+     * @param known the answer for every element that was already looked into, including the element's own tag and attributes
+     */
+    private static boolean hasBlockContent(Element element, IdentityHashMap<Element, Boolean> known) {
+        for (Node child : element.childNodes()) {
+            if (child instanceof Element) {
+                Element childElement = (Element) child;
+                Boolean childHasBlock = known.get(childElement);
+                if (childHasBlock == null) {
+                    childHasBlock = isBlockTag(childElement.tagName()) || hasBlockAttribute(childElement) || hasBlockContent(childElement, known);
+                    known.put(childElement, childHasBlock);
+                }
+                if (childHasBlock) {
+                    return true;
+                }
+            } else if (child instanceof Comment) {
+                if (hasBlockTag(((Comment) child).getData())) {
+                    return true;
+                }
+            } else if (child instanceof DataNode) {
+                if (hasBlockTag(((DataNode) child).getWholeData())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlockTag(String tagName) {
+        return tagName.startsWith("a") || tagName.startsWith("p") || tagName.startsWith("blockquote") || tagName.startsWith("dl")
+                || tagName.startsWith("div") || tagName.startsWith("img") || tagName.startsWith("ol") || tagName.startsWith("table")
+                || tagName.startsWith("ul");
+    }
+
+    /**
+     * Attributes are written out without escaping the <code>&lt;</code>, so a tag in an attribute is found in the html too
+     */
+    private static boolean hasBlockAttribute(Element element) {
+        for (Attribute attribute : element.attributes()) {
+            if (hasBlockTag(attribute.getKey()) || hasBlockTag(attribute.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasBlockTag(String html) {
+        return html.indexOf('<') >= 0 && divToPElementsPattern.matcher(html.toLowerCase()).find();
+    }
+
+    /**
+     * @return <code>true</code> if the node is somewhere under the given element
+     */
+    private static boolean isInside(Node node, Element element) {
+        for (Node parent = node.parentNode(); parent != null; parent = parent.parentNode()) {
+            if (parent == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -15,24 +15,26 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
-import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.regex.Matcher;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import me.angrybyte.goose.Configuration;
-import me.angrybyte.goose.network.GooseDownloader;
+import me.angrybyte.goose.ExtractionContext;
+import me.angrybyte.goose.OptionalStep;
+import me.angrybyte.goose.PageMetadata;
 import me.angrybyte.goose.texthelpers.string;
 
 /**
  * This image extractor will attempt to find the best image nearest the article. Unfortunately this is a slow process since we're actually
- * downloading the image itself to inspect it's actual height/width and area metrics since most of the time these aren't in the image tags
- * themselves or can be falsified. We'll weight the images in descending order depending on how high up they are compared to the top node
+ * requesting the image itself to read it's actual height/width and area metrics from its header since most of the time these aren't in the
+ * image tags themselves or can be falsified. We'll weight the images in descending order depending on how high up they are compared to the top node
  * content
  */
 public class BestImageGuesser implements ImageExtractor {
@@ -40,13 +42,18 @@ public class BestImageGuesser implements ImageExtractor {
     /**
      * This lists all the known bad button names that we have
      */
-    private static final Matcher matchBadImageNames;
+    private static final Pattern matchBadImageNames;
+
+    /**
+     * how many of the images around the content we probe at most
+     */
+    private static final int MAX_PROBED_IMAGES = 30;
 
     static {
         String negatives = (".html|.gif|.ico|button|twitter.jpg|facebook.jpg|digg.jpg|digg.png|delicious.png|facebook.png|reddit" + ""
                 + ".jpg|doubleclick|diggthis|diggThis|adserver|/ads/|ec.atdmt.com") + "|mediaplex.com|adsatt|view.atdmt";
         // create negative elements
-        matchBadImageNames = Pattern.compile(negatives).matcher(string.empty);
+        matchBadImageNames = Pattern.compile(negatives);
     }
 
     /**
@@ -84,13 +91,29 @@ public class BestImageGuesser implements ImageExtractor {
      */
     Configuration config;
 
+    /**
+     * the extraction we're working for, we stop downloading images once its budget runs out
+     */
+    ExtractionContext context;
+
+    /**
+     * reads the dimensions of the images we look at, and remembers the ones it already has
+     */
+    ImageProber prober;
+
     public BestImageGuesser(Configuration config, String targetUrl) {
+        this(config, new ExtractionContext(targetUrl, md5(targetUrl), false));
+    }
+
+    public BestImageGuesser(Configuration config, ExtractionContext context) {
         image = new Image();
 
         this.config = config;
+        this.context = context;
 
-        this.targetUrl = targetUrl;
+        this.targetUrl = context.getUrl();
         this.linkhash = md5(this.targetUrl);
+        this.prober = new ImageProber(config, context);
     }
 
     public Image getBestImage(Document doc, Element topNode) {
@@ -150,30 +173,29 @@ public class BestImageGuesser implements ImageExtractor {
     }
 
     private boolean checkForMetaTag() {
-        return this.checkForLinkTag() || this.checkForOpenGraphTag();
+        // the extraction collected these already, unless we're on our own
+        PageMetadata metadata = context.getPageMetadata();
+        if (metadata == null) {
+            metadata = PageMetadata.collect(this.doc);
+        }
+        return this.checkForLinkTag(metadata) || this.checkForOpenGraphTag(metadata);
     }
 
     /**
      * Checks to see if we were able to find open graph tags on this page
      */
-    private boolean checkForOpenGraphTag() {
+    private boolean checkForOpenGraphTag(PageMetadata metadata) {
         try {
-            Elements meta = this.doc.select("meta[property~=og:image]");
-            // MM check this again, it's important
-            // noinspection LoopStatementThatDoesntLoop
-            for (int i = 0; i < meta.size(); i++) {
-                Element item = meta.get(i);
-                if (item.attr("content").length() < 1) {
-                    return false;
-                }
-                String imagePath = this.buildImagePath(item.attr("content"));
-                this.image.setImageSrc(imagePath);
-                this.image.setImageExtractionType("opengraph");
-                this.image.setConfidenceScore(100);
-                this.image.setBytes(this.getBytesForImage(imagePath));
-                return true;
+            String content = metadata.getOpenGraphImage();
+            if (content == null || content.length() < 1) {
+                return false;
             }
-            return false;
+            String imagePath = this.buildImagePath(content);
+            this.image.setImageSrc(imagePath);
+            this.image.setImageExtractionType("opengraph");
+            this.image.setConfidenceScore(100);
+            this.image.setBytes(this.probe(this.getProbeUrl(content)).getBytes());
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -183,23 +205,17 @@ public class BestImageGuesser implements ImageExtractor {
     /**
      * Checks to see if we were able to find open graph tags on this page
      */
-    private boolean checkForLinkTag() {
+    private boolean checkForLinkTag(PageMetadata metadata) {
         try {
-            Elements meta = this.doc.select("link[rel~=image_src]");
-            // MM check this again, it's important
-            // noinspection LoopStatementThatDoesntLoop
-            for (int i = 0; i < meta.size(); i++) {
-                Element item = meta.get(i);
-                if (item.attr("href").length() < 1) {
-                    return false;
-                }
-                this.image.setImageSrc(this.buildImagePath(item.attr("href")));
-                this.image.setImageExtractionType("linktag");
-                this.image.setConfidenceScore(100);
-                this.image.setBytes(this.getBytesForImage(this.buildImagePath(item.attr("href"))));
-                return true;
+            String href = metadata.getLinkImage();
+            if (href == null || href.length() < 1) {
+                return false;
             }
-            return false;
+            this.image.setImageSrc(this.buildImagePath(href));
+            this.image.setImageExtractionType("linktag");
+            this.image.setConfidenceScore(100);
+            this.image.setBytes(this.probe(this.getProbeUrl(href)).getBytes());
+            return true;
         } catch (Exception ignored) {
             return false;
         }
@@ -210,19 +226,18 @@ public class BestImageGuesser implements ImageExtractor {
     }
 
     /**
-     * Although slow, this is the best way to determine the best image is to download them and check the actual dimensions of the image when
-     * on disk so we'll go through a phased approach... 1. get a list of ALL images from the parent node 2. filter out any bad image names
-     * that we know of (gifs, ads, etc..) 3. do a head request on each file to make sure it meets our bare requirements 4. any images left
-     * over let's do a full GET request, download em to disk and check their dimensions 5. Score images based on different factors like
-     * height/width and possibly things like color density
+     * Although slow, this is the best way to determine the best image is to request them and check the actual dimensions of the image so
+     * we'll go through a phased approach... 1. get a list of ALL images from the parent node 2. filter out any bad image names that we know
+     * of (gifs, ads, etc..) 3. check the headers of each file to make sure it meets our bare requirements 4. if it does, read just the start
+     * of the same response for its dimensions, several images at a time 5. Score images based on different factors like height/width and
+     * possibly things like color density
      */
     private void checkForLargeImages(Element node, int parentDepth, int siblingDepth) {
-        if (node == null)
+        if (node == null || !context.canRun(OptionalStep.IMAGES))
             return;
 
-        Elements images = node.select("img");
+        Elements images = node.getElementsByTag("img");
         ArrayList<Element> goodImages = this.filterBadNames(images);
-        goodImages = findImagesThatPassByteSizeTest(goodImages);
 
         HashMap<Element, Float> imageResults = downloadImagesAndGetResults(goodImages, parentDepth);
 
@@ -240,11 +255,10 @@ public class BestImageGuesser implements ImageExtractor {
         }
 
         if (highScoreImage != null) {
-            File f = new File(highScoreImage.attr("tempImagePath"));
             this.image.setTopImageNode(highScoreImage);
             this.image.setImageSrc(this.buildImagePath(highScoreImage.attr("src")));
             this.image.setImageExtractionType("bigimage");
-            this.image.setBytes((int) f.length());
+            this.image.setBytes(prober.getResult(this.getProbeUrl(highScoreImage)).getBytes());
             if (imageResults.size() > 0) {
                 this.image.setConfidenceScore(100 / imageResults.size());
             } else {
@@ -266,28 +280,6 @@ public class BestImageGuesser implements ImageExtractor {
 
     }
 
-    /**
-     * Loop through all the images and find the ones that have the best bytes to even make them a candidate
-     */
-    private ArrayList<Element> findImagesThatPassByteSizeTest(ArrayList<Element> images) {
-        int cnt = 0;
-        ArrayList<Element> goodImages = new ArrayList<>();
-        for (Element image : images) {
-            if (cnt > 30) {
-                return goodImages;
-            }
-            int bytes = this.getBytesForImage(image.attr("src"));
-            // we don't want anything over 10 megs
-            if ((bytes == 0 || bytes > this.minBytesForImages) && bytes < 10 * 1024 * 1024) {
-                goodImages.add(image);
-            } else {
-                image.remove();
-            }
-            cnt++;
-        }
-        return goodImages;
-    }
-
     /**
      * Takes a list of image elements and filters out the ones with bad names
      */
@@ -311,44 +303,23 @@ public class BestImageGuesser implements ImageExtractor {
         if (string.isNullOrEmpty(imgSrc)) {
             return false;
         }
-        matchBadImageNames.reset(imgSrc);
-        return !matchBadImageNames.find();
+        // matchers aren't thread safe, so don't share one between the extractions
+        return !matchBadImageNames.matcher(imgSrc).find();
     }
 
-    private static final String[] knownIds = {
-            "yn-story-related-media", "cnn_strylccimg300cntr", "big_photo"
-    };
-
     /**
      * In here we check for known image contains from sites we've checked out like yahoo, tech crunch, etc... that have known places to look
-     * for good images
+     * for good images, the places come from the {@link me.angrybyte.goose.rules.RulePack} of the page
      */
     private void checkForKnownElements() {
-        Element knownImage = null;
-        for (String knownName : knownIds) {
-            try {
-                Element known = this.doc.getElementById(knownName);
-
-                if (known == null) {
-                    known = this.doc.getElementsByClass(knownName).first();
-                }
-
-                if (known != null) {
-                    Element mainImage = known.getElementsByTag("img").first();
-                    if (mainImage != null) {
-                        knownImage = mainImage;
-                    }
-                }
-            } catch (NullPointerException ignored) {
-            }
-        }
+        Element knownImage = config.getRulePacks().forUrl(this.targetUrl).findKnownImage(this.doc);
 
         if (knownImage != null) {
             String knownImgSrc = knownImage.attr("src");
             this.image.setImageSrc(this.buildImagePath(knownImgSrc));
             this.image.setImageExtractionType("known");
             this.image.setConfidenceScore(90);
-            this.image.setBytes(this.getBytesForImage(knownImgSrc));
+            this.image.setBytes(this.probe(this.getProbeUrl(knownImgSrc)).getBytes());
         }
 
     }
@@ -370,31 +341,28 @@ public class BestImageGuesser implements ImageExtractor {
     }
 
     /**
-     * Does the HTTP HEAD request to get the image bytes for this images
+     * @return the absolute url of the image, the way the prober knows it
      */
-    private int getBytesForImage(String imageSrc) {
-        int bytes = 0;
-        try {
-            String content = this.buildImagePath(imageSrc);
-            content = content.replace(" ", "%20");
-            bytes = this.minBytesForImages + 1;
+    private String getProbeUrl(Element image) {
+        return this.getProbeUrl(image.attr("src"));
+    }
 
-            try {
-                GooseDownloader.ContentInfo info = GooseDownloader.getContentInfo(content, true);
-                int currentBytes = info.size;
-                if (info.mimeType.contains("image")) {
-                    bytes = currentBytes;
-                }
-            } catch (NullPointerException ignored) {
-            }
-        } catch (Exception ignored) {
-        }
+    private String getProbeUrl(String imageSrc) {
+        return this.buildImagePath(imageSrc).replace(" ", "%20");
+    }
 
-        return bytes;
+    /**
+     * Probes a single image, so it shares the connection and the cache with the candidates from the page if it's one of them too
+     *
+     * @return what came of it, {@link ImageProber.Result#FAILED} if the budget ran out first
+     */
+    private ImageProber.Result probe(String url) {
+        ImageProber.Result probe = prober.probeAll(Collections.singletonList(url), this.minBytesForImages).get(0);
+        return probe == null ? ImageProber.Result.FAILED : probe;
     }
 
     /**
-     * Download the images to temp disk and set their dimensions
+     * Read the dimensions of the images from their headers, the ones that fail the byte size test are dropped from the page
      * <p/>
      * we're going to score the images in the order in which they appear so images higher up will have more importance, we'll count the area
      * of the 1st image as a score of 1 and then calculate how much larger or small each image after it is we'll also make sure to try and
@@ -404,27 +372,38 @@ public class BestImageGuesser implements ImageExtractor {
     private HashMap<Element, Float> downloadImagesAndGetResults(ArrayList<Element> images, int depthLevel) {
         HashMap<Element, Float> imageResults = new HashMap<>();
 
+        // the probes run side by side, the scoring goes through them in order on this thread since the dom isn't thread safe
+        List<Element> candidates = images.subList(0, Math.min(images.size(), MAX_PROBED_IMAGES));
+        ArrayList<String> imageSources = new ArrayList<>(candidates.size());
+        for (Element image : candidates) {
+            imageSources.add(this.getProbeUrl(image));
+        }
+        List<ImageProber.Result> probes = prober.probeAll(imageSources, this.minBytesForImages);
+
         int cnt = 1;
         int initialArea = 0;
 
-        for (Element image : images) {
-            if (cnt > 30) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!context.canRun(OptionalStep.IMAGES)) {
                 break;
             }
 
-            // download image to local disk
-            try {
-                String imageSource = this.buildImagePath(image.attr("src"));
+            Element image = candidates.get(i);
+            ImageProber.Result probe = probes.get(i);
+            if (probe == null) {
+                continue;
+            }
+            if (probe.isRejected()) {
+                image.remove();
+                continue;
+            }
 
-                String cachePath = ImageSaver.storeTempImage(linkhash, imageSource, config.getCacheDirectory(), config.getMinBytesForImages());
-                if (cachePath == null) {
+            try {
+                ImageDetails imageDims = probe.getDetails();
+                if (imageDims == null) {
                     continue;
                 }
 
-                // set the temporary image path as an attribute on this node
-                image.attr("tempImagePath", cachePath);
-
-                ImageDetails imageDims = ImageUtils.getImageDetails(cachePath);
                 int width = imageDims.getWidth();
                 int height = imageDims.getHeight();
 
@@ -0,0 +1,274 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.images;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.angrybyte.goose.Configuration;
+import me.angrybyte.goose.ExtractionContext;
+import me.angrybyte.goose.cache.CachedImage;
+import me.angrybyte.goose.cache.ImageCache;
+import me.angrybyte.goose.network.GooseDownloader;
+
+/**
+ * Looks at the candidate images of one article for {@link BestImageGuesser}. Every image takes a single connection: the headers are
+ * checked against the byte size limits first, and if they pass, only as much of the image is read as it takes to find its dimensions with
+ * an {@link ImageSniffer}. Up to
+ * {@link Configuration#getMaxImageProbes()} images are looked at the same time, and an image that shows up more than once is only
+ * requested once.
+ */
+class ImageProber {
+
+    /**
+     * we don't want anything over 10 megs
+     */
+    private static final int MAX_IMAGE_BYTES = 10 * 1024 * 1024;
+
+    private final Configuration config;
+    private final ExtractionContext context;
+
+    /**
+     * every image we started on, finished or not, by its url
+     */
+    private final ConcurrentHashMap<String, FutureTask<Result>> probes = new ConcurrentHashMap<>();
+
+    ImageProber(Configuration config, ExtractionContext context) {
+        this.config = config;
+        this.context = context;
+    }
+
+    /**
+     * Probes all the images and waits for them. The calling thread probes too, so only the extra ones go to the executor from
+     * {@link Configuration#getImageExecutor()}.
+     *
+     * @param urls     the absolute urls of the images
+     * @param minBytes images whose content length isn't above this are turned down, unless the server didn't say
+     * @return what came of each url, in the same order. It's <code>null</code> where the budget ran out before the image was probed.
+     */
+    List<Result> probeAll(final List<String> urls, final int minBytes) {
+        final Result[] results = new Result[urls.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < results.length) {
+                    if (context.isBudgetSpent()) {
+                        return;
+                    }
+                    results[i] = probe(urls.get(i), minBytes);
+                }
+            }
+        };
+
+        int helpers = Math.max(Math.min(config.getMaxImageProbes(), results.length) - 1, 0);
+        final CountDownLatch finished = new CountDownLatch(helpers);
+        Executor executor = config.getImageExecutor() == null ? DefaultExecutorHolder.EXECUTOR : config.getImageExecutor();
+        for (int h = 0; h < helpers; h++) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            worker.run();
+                        } finally {
+                            finished.countDown();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // we'll get through the list on our own then
+                finished.countDown();
+            }
+        }
+
+        worker.run();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @return what came of the image last time it was probed, {@link Result#FAILED} if it never was
+     */
+    Result getResult(String url) {
+        FutureTask<Result> task = probes.get(url);
+        if (task == null || !task.isDone()) {
+            return Result.FAILED;
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException | InterruptedException e) {
+            return Result.FAILED;
+        }
+    }
+
+    /**
+     * Probes the image, or waits for the thread that's already probing it
+     */
+    private Result probe(final String url, final int minBytes) {
+        FutureTask<Result> task = new FutureTask<>(new Callable<Result>() {
+            @Override
+            public Result call() {
+                return readDetails(url, minBytes);
+            }
+        });
+
+        FutureTask<Result> started = probes.putIfAbsent(url, task);
+        if (started == null) {
+            started = task;
+            task.run();
+        }
+
+        try {
+            return started.get();
+        } catch (ExecutionException e) {
+            return Result.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.FAILED;
+        }
+    }
+
+    private Result readDetails(String url, int minBytes) {
+        SizeTest sizeTest = new SizeTest(minBytes);
+        ImageCache cache = config.getImageCache();
+        CachedImage cached = cache == null ? null : cache.get(url);
+        ImageDetails details;
+        if (cached != null) {
+            // the headers are what the server sent last time, the test gets to decide again in case the limits changed
+            if (!sizeTest.accept(new GooseDownloader.ContentInfo(url, cached.getContentLength(), cached.getContentType()))) {
+                return Result.REJECTED;
+            }
+            details = cached.getDetails();
+        } else {
+            context.getMetrics().recordHttpRequest();
+            details = GooseDownloader.getPhotoDetails(url, true, sizeTest, context.getMetrics());
+            if (sizeTest.rejected) {
+                return Result.REJECTED;
+            }
+
+            // only the images we could read, anything else might work out next time
+            if (cache != null && details != null) {
+                cache.put(url, new CachedImage(sizeTest.info.size, sizeTest.info.mimeType, details));
+            }
+        }
+
+        // gifs don't make it as the top image, and neither do images that are too small to be worth it
+        int bytes = sizeTest.info == null ? -1 : sizeTest.info.size;
+        if (details == null || details.getMimeType().contains("gif") || (bytes >= 0 && bytes < config.getMinBytesForImages())) {
+            return Result.FAILED;
+        }
+        return new Result(bytes, details);
+    }
+
+    /**
+     * Turns images down by the length the server said they have, and remembers what it said
+     */
+    private static class SizeTest implements GooseDownloader.PhotoFilter {
+
+        private final int minBytes;
+        private GooseDownloader.ContentInfo info;
+        private boolean rejected;
+
+        SizeTest(int minBytes) {
+            this.minBytes = minBytes;
+        }
+
+        @Override
+        public boolean accept(GooseDownloader.ContentInfo info) {
+            this.info = info;
+            // the length is only worth something if it's really an image, otherwise let it through and look at the header
+            int bytes = minBytes + 1;
+            if (info.mimeType != null && info.mimeType.contains("image")) {
+                bytes = info.size;
+            }
+            rejected = !((bytes == 0 || bytes > minBytes) && bytes < MAX_IMAGE_BYTES);
+            return !rejected;
+        }
+    }
+
+    /**
+     * What came of probing one image
+     */
+    static final class Result {
+
+        /**
+         * the headers said the image is too small or too big, it should be dropped from the page
+         */
+        static final Result REJECTED = new Result(-1, null);
+
+        /**
+         * the connection failed or the image is no good, but there's no reason to drop it
+         */
+        static final Result FAILED = new Result(-1, null);
+
+        private final int bytes;
+        private final ImageDetails details;
+
+        private Result(int bytes, ImageDetails details) {
+            this.bytes = bytes;
+            this.details = details;
+        }
+
+        boolean isRejected() {
+            return this == REJECTED;
+        }
+
+        /**
+         * @return the length of the image the server told us, -1 if it didn't
+         */
+        int getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the format and the dimensions, or <code>null</code> if we don't have them
+         */
+        ImageDetails getDetails() {
+            return details;
+        }
+    }
+
+    /**
+     * Creates the shared threads only once somebody probes images without an executor of their own
+     */
+    private static class DefaultExecutorHolder {
+
+        static final Executor EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "goose-image-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+}
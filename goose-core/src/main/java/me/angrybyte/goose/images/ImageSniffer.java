@@ -0,0 +1,305 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.images;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the format and the dimensions of an image from its first few bytes, so it doesn't have to be downloaded and decoded as a whole.
+ * Knows JPEG, PNG, GIF, WebP and AVIF.
+ */
+public final class ImageSniffer {
+
+    /**
+     * every format but JPEG has its dimensions in the first few dozen bytes, JPEG has them after the metadata and we give up if there's
+     * more of that than this
+     */
+    public static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final InputStream stream;
+    private byte[] buffer = new byte[1024];
+    private int length;
+
+    private ImageSniffer(InputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Reads only as much of the stream as it takes to find the dimensions, and doesn't close it
+     *
+     * @return the dimensions and the mime type, or <code>null</code> if it's not an image we know or its header is broken
+     */
+    public static ImageDetails sniff(InputStream stream) throws IOException {
+        return new ImageSniffer(stream).sniff();
+    }
+
+    private ImageDetails sniff() throws IOException {
+        if (!fill(12)) {
+            return null;
+        }
+
+        if (startsWith(0, PNG_SIGNATURE)) {
+            return readPng();
+        } else if (startsWith(0, "GIF8")) {
+            return readGif();
+        } else if (u8(0) == 0xFF && u8(1) == 0xD8) {
+            return readJpeg();
+        } else if (startsWith(0, "RIFF") && startsWith(8, "WEBP")) {
+            return readWebp();
+        } else if (startsWith(4, "ftyp")) {
+            return readAvif();
+        }
+        return null;
+    }
+
+    private ImageDetails readPng() throws IOException {
+        // the IHDR chunk always comes first
+        if (!fill(24) || !startsWith(12, "IHDR")) {
+            return null;
+        }
+        return details(u32(16), u32(20), "image/png");
+    }
+
+    private ImageDetails readGif() throws IOException {
+        return details(u16le(6), u16le(8), "image/gif");
+    }
+
+    private ImageDetails readJpeg() throws IOException {
+        int position = 2;
+        while (true) {
+            if (!fill(position + 1) || u8(position) != 0xFF) {
+                return null;
+            }
+
+            // a marker can be padded with any number of 0xFF
+            while (u8(position) == 0xFF) {
+                position++;
+                if (!fill(position + 1)) {
+                    return null;
+                }
+            }
+
+            int marker = u8(position++);
+            if (marker == 0xD9 || marker == 0xDA) {
+                // the image is over or the pixels are starting, either way there's no frame header
+                return null;
+            } else if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                // these have no length or payload
+                continue;
+            }
+
+            if (!fill(position + 2)) {
+                return null;
+            }
+            int segmentLength = u16(position);
+            if (segmentLength < 2) {
+                return null;
+            }
+
+            if (isStartOfFrame(marker)) {
+                // length, sample precision, then the height before the width
+                if (!fill(position + 7)) {
+                    return null;
+                }
+                return details(u16(position + 5), u16(position + 3), "image/jpeg");
+            }
+            position += segmentLength;
+        }
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        // C4, C8 and CC are in the same range but are huffman tables, a reserved marker and arithmetic coding conditions
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private ImageDetails readWebp() throws IOException {
+        if (!fill(16)) {
+            return null;
+        }
+
+        // the first chunk after the header tells us which of the three flavors it is
+        if (startsWith(12, "VP8 ")) {
+            // lossy: a frame tag, a start code and 14 bits each for the width and height
+            if (!fill(30) || u8(23) != 0x9D || u8(24) != 0x01 || u8(25) != 0x2A) {
+                return null;
+            }
+            return details(u16le(26) & 0x3FFF, u16le(28) & 0x3FFF, "image/webp");
+        } else if (startsWith(12, "VP8L")) {
+            // lossless: a signature byte, then the width and height less one in 14 bits each
+            if (!fill(25) || u8(20) != 0x2F) {
+                return null;
+            }
+            long bits = u8(21) | u8(22) << 8 | u8(23) << 16 | (long) u8(24) << 24;
+            return details((int) (bits & 0x3FFF) + 1, (int) (bits >> 14 & 0x3FFF) + 1, "image/webp");
+        } else if (startsWith(12, "VP8X")) {
+            // extended: flags, then the canvas width and height less one in 24 bits each
+            if (!fill(30)) {
+                return null;
+            }
+            return details(u24le(24) + 1, u24le(27) + 1, "image/webp");
+        }
+        return null;
+    }
+
+    private ImageDetails readAvif() throws IOException {
+        // the brands in the file type box tell AVIF apart from everything else that's stored the same way
+        long fileTypeSize = u32(0);
+        if (fileTypeSize < 16 || fileTypeSize > MAX_HEADER_BYTES || !fill((int) fileTypeSize)) {
+            return null;
+        }
+        // the major brand, then the compatible ones after the minor version
+        boolean avif = isAvifBrand(8);
+        for (int brand = 16; !avif && brand + 4 <= fileTypeSize; brand += 4) {
+            avif = isAvifBrand(brand);
+        }
+        if (!avif) {
+            return null;
+        }
+
+        // the size of each image is a property of it: meta > iprp > ipco > ispe, the first one is the size of the primary image
+        int meta = findBox((int) fileTypeSize, MAX_HEADER_BYTES, "meta");
+        if (meta < 0) {
+            return null;
+        }
+        // meta is a full box, there's a version and flags before its children
+        int iprp = findBox(meta + 12, boxEnd(meta), "iprp");
+        int ipco = iprp < 0 ? -1 : findBox(iprp + 8, boxEnd(iprp), "ipco");
+        int ispe = ipco < 0 ? -1 : findBox(ipco + 8, boxEnd(ipco), "ispe");
+        if (ispe < 0 || !fill(ispe + 20)) {
+            return null;
+        }
+        return details(u32(ispe + 12), u32(ispe + 16), "image/avif");
+    }
+
+    private boolean isAvifBrand(int position) {
+        return startsWith(position, "avif") || startsWith(position, "avis");
+    }
+
+    /**
+     * @return where the first box of the type starts between the two positions, or -1 if there's none or it's too far into the file
+     */
+    private int findBox(int from, int to, String type) throws IOException {
+        int position = from;
+        while (position < to && fill(position + 8)) {
+            if (startsWith(position + 4, type)) {
+                return position;
+            }
+
+            long size = boxSize(position);
+            if (size < 8) {
+                return -1;
+            }
+            position += size;
+        }
+        return -1;
+    }
+
+    private int boxEnd(int position) {
+        return (int) Math.min(position + boxSize(position), MAX_HEADER_BYTES);
+    }
+
+    /**
+     * @return the size of the box, anything past the header bytes we'd read counts as too big
+     */
+    private long boxSize(int position) {
+        long size = u32(position);
+        if (size == 0) {
+            // the box goes on to the end of the file
+            return MAX_HEADER_BYTES;
+        } else if (size == 1) {
+            // a 64 bit size comes after the type, it's only ever used for boxes far bigger than what we'd read
+            return MAX_HEADER_BYTES;
+        }
+        return Math.min(size, MAX_HEADER_BYTES);
+    }
+
+    private static ImageDetails details(long width, long height, String mimeType) {
+        if (width <= 0 || height <= 0 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        ImageDetails details = new ImageDetails();
+        details.setWidth((int) width);
+        details.setHeight((int) height);
+        details.setMimeType(mimeType);
+        return details;
+    }
+
+    /**
+     * Makes sure the first <code>count</code> bytes of the stream are in the buffer
+     *
+     * @return <code>false</code> if the stream ends before that, or it's more than we're willing to read
+     */
+    private boolean fill(int count) throws IOException {
+        if (count <= length) {
+            return true;
+        } else if (count > MAX_HEADER_BYTES) {
+            return false;
+        }
+
+        if (count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(Math.max(count, buffer.length * 2), MAX_HEADER_BYTES));
+        }
+
+        // only ask for what we need, the rest of the image is never downloaded
+        while (length < count) {
+            int read = stream.read(buffer, length, count - length);
+            if (read == -1) {
+                return false;
+            }
+            length += read;
+        }
+        return true;
+    }
+
+    private boolean startsWith(int position, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[position + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int position, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int u8(int position) {
+        return buffer[position] & 0xFF;
+    }
+
+    private int u16(int position) {
+        return u8(position) << 8 | u8(position + 1);
+    }
+
+    private int u16le(int position) {
+        return u8(position) | u8(position + 1) << 8;
+    }
+
+    private int u24le(int position) {
+        return u8(position) | u8(position + 1) << 8 | u8(position + 2) << 16;
+    }
+
+    private long u32(int position) {
+        return (long) u8(position) << 24 | u8(position + 1) << 16 | u8(position + 2) << 8 | u8(position + 3);
+    }
+
+}
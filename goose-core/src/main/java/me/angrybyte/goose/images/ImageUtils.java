@@ -0,0 +1,38 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.images;
+
+import java.util.Locale;
+
+public class ImageUtils {
+
+    /**
+     * Reads the file extension from the given content type or URL (in String form), {@code null} if not found.
+     */
+    public static String getFileExtensionSimple(String contentType) {
+        if (contentType != null) {
+            contentType = contentType.toUpperCase(Locale.getDefault());
+            if (contentType.endsWith("GIF")) {
+                return ".gif";
+            } else if (contentType.endsWith("JPEG") || contentType.endsWith("JPG")) {
+                return ".jpg";
+            } else if (contentType.endsWith("PNG")) {
+                return ".png";
+            } else {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.metrics;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.angrybyte.goose.ExtractionListener;
+import me.angrybyte.goose.ExtractionMetrics;
+import me.angrybyte.goose.ExtractionStage;
+
+/**
+ * Adds up the metrics of all the extractions it's told about: a latency histogram and a failure counter for every stage, and histograms of
+ * the sizes each extraction had to deal with. One registry can be shared by any number of extractors and threads.
+ */
+public class MetricsRegistry implements ExtractionListener {
+
+    private final EnumMap<ExtractionStage, Histogram> stageLatency = new EnumMap<>(ExtractionStage.class);
+    private final EnumMap<ExtractionStage, AtomicLong> stageFailures = new EnumMap<>(ExtractionStage.class);
+
+    private final Histogram extractionLatency = new Histogram();
+    private final Histogram htmlBytes = new Histogram();
+    private final Histogram domNodes = new Histogram();
+    private final Histogram candidateNodes = new Histogram();
+    private final Histogram httpRequests = new Histogram();
+    private final Histogram imageBytes = new Histogram();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    public MetricsRegistry() {
+        // filled up front so the maps are only ever read afterwards
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            stageLatency.put(stage, new Histogram());
+            stageFailures.put(stage, new AtomicLong());
+        }
+    }
+
+    @Override
+    public void onStageFinished(String url, ExtractionStage stage, long nanos, Exception error) {
+        stageLatency.get(stage).record(nanos);
+        if (error != null) {
+            stageFailures.get(stage).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onExtractionFinished(String url, ExtractionMetrics metrics) {
+        extractionLatency.record(metrics.getTotalNanos());
+        htmlBytes.record(metrics.getHtmlBytes());
+        domNodes.record(metrics.getDomNodeCount());
+        candidateNodes.record(metrics.getCandidateNodeCount());
+        httpRequests.record(metrics.getHttpRequests());
+        imageBytes.record(metrics.getImageBytes());
+        if (metrics.isCacheHit()) {
+            cacheHits.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return how long the stage took, in nanoseconds
+     */
+    public Histogram getStageLatency(ExtractionStage stage) {
+        return stageLatency.get(stage);
+    }
+
+    /**
+     * @return how many times the stage threw
+     */
+    public long getStageFailures(ExtractionStage stage) {
+        return stageFailures.get(stage).get();
+    }
+
+    /**
+     * @return how long whole extractions took, in nanoseconds
+     */
+    public Histogram getExtractionLatency() {
+        return extractionLatency;
+    }
+
+    /**
+     * @return how many extractions finished, failed or not
+     */
+    public long getExtractionCount() {
+        return extractionLatency.getCount();
+    }
+
+    /**
+     * @return how many of the extractions were answered from the article cache
+     */
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return the size of the html of each page, see {@link ExtractionMetrics#getHtmlBytes()}
+     */
+    public Histogram getHtmlBytes() {
+        return htmlBytes;
+    }
+
+    public Histogram getDomNodes() {
+        return domNodes;
+    }
+
+    public Histogram getCandidateNodes() {
+        return candidateNodes;
+    }
+
+    public Histogram getHttpRequests() {
+        return httpRequests;
+    }
+
+    public Histogram getImageBytes() {
+        return imageBytes;
+    }
+
+}
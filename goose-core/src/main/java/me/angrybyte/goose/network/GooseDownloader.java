@@ -1,24 +1,24 @@
 package me.angrybyte.goose.network;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.text.TextUtils;
-import android.util.Log;
-
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.Scanner;
+
+import me.angrybyte.goose.ExtractionMetrics;
+import me.angrybyte.goose.GooseLog;
+import me.angrybyte.goose.images.ImageDetails;
+import me.angrybyte.goose.images.ImageSniffer;
+import me.angrybyte.goose.texthelpers.string;
 
 /**
- * A rework of the old {@code HtmlFetcher} that works with Android platform. Helps you download HTML and Bitmaps.
+ * A rework of the old {@code HtmlFetcher} that works on Android and on a plain JVM. Helps you download HTML and images.
  */
 public class GooseDownloader {
 
     private static final String TAG = GooseDownloader.class.getSimpleName();
-    private static final int MAX_BYTES = 15 * 1024 * 1024;
+    public static final int MAX_BYTES = 15 * 1024 * 1024;
 
     private static final String AGENT = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.4 (KHTML, like Gecko) Chrome/22.0.1229.94 Safari/537.4";
     private static final String CONTENT = "application/xml,application/xhtml+xml,text/html,application/javascript;q=0.9,text/plain;q=0.8,image/png,*/*;q=0.5";
@@ -42,6 +42,18 @@ public class GooseDownloader {
         }
     }
 
+    /**
+     * Decides from the headers if an image is worth reading.
+     */
+    public interface PhotoFilter {
+
+        /**
+         * @param info What the server said about the image, its body hasn't been read yet
+         * @return {@code false} to hang up without reading any of it
+         */
+        boolean accept(ContentInfo info);
+    }
+
     /**
      * Given a URL, establishes an HttpUrlConnection and retrieves the web page content as a InputStream, which it returns as a string. Follows redirects.
      *
@@ -54,13 +66,40 @@ public class GooseDownloader {
      * @throws NotHtmlException  If we determine it's not HTML, this will be thrown
      */
     public static String getHtml(String textUrl, boolean followRedirects) throws IOException, MaxBytesException, NotHtmlException {
+        return getHtmlBytes(textUrl, followRedirects).decode();
+    }
+
+    /**
+     * Same as {@link #getHtml(String, boolean)}, but keeps the page as the bytes that came over the wire. The charset is taken from the byte
+     * order mark, the <code>Content-Type</code> header or a meta tag, in that order.
+     *
+     * @throws MaxBytesException If more than {@link #MAX_BYTES} come through, whatever the server said the length would be
+     */
+    public static HtmlBytes getHtmlBytes(String textUrl, boolean followRedirects) throws IOException, MaxBytesException, NotHtmlException {
+        return getHtmlBytes(textUrl, followRedirects, false);
+    }
+
+    /**
+     * Same as {@link #getHtmlBytes(String, boolean)}, but stops reading once the head of the page is over and drops the connection, so the
+     * body is never downloaded. Good enough for the title and the meta tags.
+     *
+     * @see HtmlBytes#readHead(InputStream, String, int)
+     */
+    public static HtmlBytes getHtmlHeadBytes(String textUrl, boolean followRedirects) throws IOException, MaxBytesException, NotHtmlException {
+        return getHtmlBytes(textUrl, followRedirects, true);
+    }
+
+    private static HtmlBytes getHtmlBytes(String textUrl, boolean followRedirects, boolean headOnly) throws IOException, MaxBytesException,
+            NotHtmlException {
         HttpURLConnection connection = null;
         InputStream stream = null;
 
         try {
             connection = prepareConnection(textUrl, followRedirects);
             connection.connect();
-            if (connection.getContentLength() > MAX_BYTES) {
+            int contentLength = connection.getContentLength();
+            // the head of a huge page is as small as any other
+            if (!headOnly && contentLength > MAX_BYTES) {
                 throw new MaxBytesException();
             }
 
@@ -69,15 +108,20 @@ public class GooseDownloader {
                 throw new IOException("Response code for " + connection.getURL().toExternalForm() + " was " + response);
             }
 
-            stream = connection.getInputStream();
-            String content = convertStream(stream);
-
-            if (TextUtils.isEmpty(content)) {
+            // no need to download what we're not going to use
+            String mimeType = connection.getContentType(); // MM make this more loose (don't check for type)?
+            if (mimeType == null || (!mimeType.contains("text/html") && !mimeType.contains("text/xml") && !mimeType.contains("application/xml"))) {
                 throw new NotHtmlException();
             }
 
-            String mimeType = connection.getContentType(); // MM make this more loose (don't check for type)?
-            if (mimeType == null || (!mimeType.contains("text/html") && !mimeType.contains("text/xml") && !mimeType.contains("application/xml"))) {
+            stream = connection.getInputStream();
+            HtmlBytes content;
+            if (headOnly) {
+                content = HtmlBytes.readHead(stream, mimeType, MAX_BYTES);
+            } else {
+                content = HtmlBytes.read(stream, mimeType, MAX_BYTES, contentLength);
+            }
+            if (content.length() == 0) {
                 throw new NotHtmlException();
             }
 
@@ -176,22 +220,35 @@ public class GooseDownloader {
     }
 
     /**
-     * Downloads a Bitmap image from the given URL. Follows redirects.
+     * Reads just enough of an image to tell its format and dimensions, then hangs up, so the rest of it is never downloaded. Follows
+     * redirects.
      *
      * @param textUrl Which URL to use
      * @param followRedirects Whether to follow 301 and 302 server redirect codes
-     * @return A Bitmap object if download succeeds, or {@code null} if download fails
+     * @param filter Gets to look at the headers before any of the image is read
+     * @param metrics Gets the number of bytes downloaded
+     * @return The format and dimensions, or {@code null} if download fails, the filter turned the image down or it's not a format we know
+     * @see ImageSniffer
      */
-    public static Bitmap getPhoto(String textUrl, boolean followRedirects) {
+    public static ImageDetails getPhotoDetails(String textUrl, boolean followRedirects, PhotoFilter filter, ExtractionMetrics metrics) {
         HttpURLConnection connection = null;
         InputStream stream = null;
         try {
             connection = prepareConnection(textUrl, followRedirects);
             connection.connect();
-            stream = connection.getInputStream();
-            return BitmapFactory.decodeStream(stream);
+            if (!filter.accept(new ContentInfo(textUrl, connection.getContentLength(), connection.getContentType()))) {
+                return null;
+            }
+
+            CountingInputStream counted = new CountingInputStream(connection.getInputStream());
+            stream = counted;
+            try {
+                return ImageSniffer.sniff(counted);
+            } finally {
+                metrics.recordImageBytes(counted.getCount());
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Bitmap download exception");
+            GooseLog.e(TAG, "Image details exception");
             return null;
         } finally {
             close(stream);
@@ -199,40 +256,4 @@ public class GooseDownloader {
         }
     }
 
-    /**
-     * Returns {@link ContentInfo} for the given URL.
-     *
-     * @param textUrl Which URL to use
-     * @param followRedirects Whether to follow 301 and 302 server redirect codes
-     * @return Either a content info object, or {@link ContentInfo#EMPTY} if something fails
-     */
-    public static ContentInfo getContentInfo(String textUrl, boolean followRedirects) {
-        HttpURLConnection connection = null;
-        try {
-            connection = prepareConnection(textUrl, followRedirects);
-            connection.connect();
-            int size = connection.getContentLength();
-            String type = connection.getContentType();
-            return new ContentInfo(textUrl, size, type);
-        } catch (Exception e) {
-            Log.e(TAG, "Cannot get content info from " + textUrl, e);
-            return ContentInfo.EMPTY;
-        } finally {
-            disconnect(connection);
-        }
-    }
-
-    /**
-     * Reads an InputStream and converts it to a String.
-     *
-     * @param stream An {@link InputStream} to convert
-     * @return Either the full text from the stream, or an empty string
-     *
-     * @throws IOException Usually occurs when URL connection fails or you have an invalid URL
-     */
-    public static String convertStream(InputStream stream) throws IOException {
-        Scanner s = new Scanner(stream, "UTF-8").useDelimiter("\\A");
-        return s.hasNext() ? s.next() : "";
-    }
-
 }
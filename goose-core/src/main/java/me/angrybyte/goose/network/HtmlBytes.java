@@ -0,0 +1,252 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The html of a page exactly as it came over the wire, together with the charset it's written in. Keeping the bytes around instead of a
+ * decoded string takes half the memory for most pages, and the charset is worked out from the bytes themselves so pages that aren't UTF-8
+ * come out right the first time.
+ */
+public final class HtmlBytes {
+
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * how far into the page we look for a meta tag with the charset, browsers look at the first 1024 bytes
+     */
+    private static final int META_SCAN_BYTES = 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * most heads fit in this, so reading just the head rarely needs a bigger buffer
+     */
+    private static final int HEAD_BUFFER_SIZE = 16 * 1024;
+
+    // "</head" or "<body", and the character after them
+    private static final int HEAD_END_WINDOW = 7;
+
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset\\s*=\\s*[\"']?([^\\s,;\"'/>]+)");
+    private static final Pattern META_PATTERN = Pattern.compile("(?i)<meta\\s[^>]*>");
+
+    private final byte[] bytes;
+    private final int length;
+    private final Charset charset;
+
+    private HtmlBytes(byte[] bytes, int length, Charset charset) {
+        this.bytes = bytes;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    /**
+     * Reads the whole stream, without closing it
+     *
+     * @param stream      the html
+     * @param contentType the <code>Content-Type</code> header it came with, or <code>null</code>
+     * @param maxBytes    how much we're willing to read
+     * @throws MaxBytesException if the stream holds more than <code>maxBytes</code>
+     */
+    public static HtmlBytes read(InputStream stream, String contentType, int maxBytes) throws IOException, MaxBytesException {
+        return read(stream, contentType, maxBytes, -1);
+    }
+
+    static HtmlBytes read(InputStream stream, String contentType, int maxBytes, int expectedLength) throws IOException, MaxBytesException {
+        // the length header is only a hint, chunked responses don't have one and some servers get it wrong
+        byte[] buffer = new byte[expectedLength > 0 ? Math.min(expectedLength + 1, maxBytes + 1) : Math.min(INITIAL_BUFFER_SIZE, maxBytes + 1)];
+        int length = 0;
+        int read;
+        while ((read = stream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length > maxBytes) {
+                throw new MaxBytesException();
+            }
+
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBytes + 1L));
+            }
+        }
+
+        return new HtmlBytes(buffer, length, detectCharset(buffer, length, contentType));
+    }
+
+    /**
+     * Reads the stream only until the head of the page is over, that's where <code>&lt;/head&gt;</code> or <code>&lt;body&gt;</code> starts.
+     * The rest of the stream is left unread. If the page has neither, it's read to the end.
+     *
+     * @param stream      the html
+     * @param contentType the <code>Content-Type</code> header it came with, or <code>null</code>
+     * @param maxBytes    how much we're willing to read
+     * @return the html up to the end of the head
+     * @throws MaxBytesException if the head isn't over in <code>maxBytes</code>
+     */
+    public static HtmlBytes readHead(InputStream stream, String contentType, int maxBytes) throws IOException, MaxBytesException {
+        byte[] buffer = new byte[Math.min(HEAD_BUFFER_SIZE, maxBytes + 1)];
+        int length = 0;
+        int scanned = 0;
+        int read;
+        while ((read = stream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            int headEnd = findHeadEnd(buffer, scanned, length);
+            if (headEnd >= 0) {
+                return new HtmlBytes(buffer, headEnd, detectCharset(buffer, headEnd, contentType));
+            }
+
+            // a tag cut in half by the read is looked at again once the rest of it is here
+            scanned = Math.max(scanned, length - HEAD_END_WINDOW + 1);
+            if (length > maxBytes) {
+                throw new MaxBytesException();
+            }
+
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBytes + 1L));
+            }
+        }
+
+        return new HtmlBytes(buffer, length, detectCharset(buffer, length, contentType));
+    }
+
+    /**
+     * @return where the first <code>&lt;/head</code> or <code>&lt;body</code> tag starts, or -1 if there's none between <code>from</code>
+     * and <code>to</code>
+     */
+    private static int findHeadEnd(byte[] bytes, int from, int to) {
+        for (int i = from; i + HEAD_END_WINDOW <= to; i++) {
+            if (bytes[i] != '<') {
+                continue;
+            }
+            if (bytes[i + 1] == '/' && matches(bytes, i + 2, "head") && !isLetter(bytes[i + 6])) {
+                return i;
+            }
+            if (matches(bytes, i + 1, "body") && !isLetter(bytes[i + 5])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return if the bytes at the position spell out the lower case ASCII word, in any case
+     */
+    private static boolean matches(byte[] bytes, int position, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if ((bytes[position + i] | 0x20) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(byte b) {
+        int lower = b | 0x20;
+        return lower >= 'a' && lower <= 'z';
+    }
+
+    /**
+     * @return the number of bytes of html
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Feeds the bytes of the page to the digest, without copying them
+     */
+    public void digest(MessageDigest digest) {
+        digest.update(bytes, 0, length);
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return the html as text, decoded anew on every call
+     */
+    public String decode() {
+        return new String(bytes, 0, length, charset);
+    }
+
+    /**
+     * Picks the charset the same way browsers do: a byte order mark wins, then the charset from the header, then the one from a meta tag near
+     * the top of the page. If none of them is there or known, it's UTF-8.
+     */
+    static Charset detectCharset(byte[] bytes, int length, String contentType) {
+        Charset charset = fromByteOrderMark(bytes, length);
+        if (charset == null && contentType != null) {
+            charset = fromContentType(contentType);
+        }
+        if (charset == null) {
+            charset = fromMetaTag(bytes, length);
+        }
+        return charset == null ? DEFAULT_CHARSET : charset;
+    }
+
+    private static Charset fromByteOrderMark(byte[] bytes, int length) {
+        if (length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
+            return DEFAULT_CHARSET;
+        }
+
+        // the UTF-16 decoder reads the mark itself to tell big from little endian
+        if (length >= 2 && (bytes[0] == (byte) 0xFE && bytes[1] == (byte) 0xFF || bytes[0] == (byte) 0xFF && bytes[1] == (byte) 0xFE)) {
+            return Charset.forName("UTF-16");
+        }
+        return null;
+    }
+
+    private static Charset fromContentType(String contentType) {
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        return matcher.find() ? toCharset(matcher.group(1)) : null;
+    }
+
+    private static Charset fromMetaTag(byte[] bytes, int length) {
+        // every charset we could find this way writes ASCII the same, and ISO-8859-1 maps each byte to one char so nothing shifts around
+        String head = new String(bytes, 0, Math.min(length, META_SCAN_BYTES), Charset.forName("ISO-8859-1"));
+        Matcher meta = META_PATTERN.matcher(head);
+        while (meta.find()) {
+            Matcher charset = CHARSET_PATTERN.matcher(meta.group());
+            if (charset.find()) {
+                Charset found = toCharset(charset.group(1));
+                if (found != null) {
+                    // a page that made it here as bytes can't really be UTF-16, whatever the tag says
+                    return found.name().startsWith("UTF-16") ? DEFAULT_CHARSET : found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Charset toCharset(String name) {
+        try {
+            name = name.trim();
+            if (Charset.isSupported(name)) {
+                return Charset.forName(name);
+            }
+
+            name = name.toUpperCase(Locale.ENGLISH);
+            return Charset.isSupported(name) ? Charset.forName(name) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+
+}
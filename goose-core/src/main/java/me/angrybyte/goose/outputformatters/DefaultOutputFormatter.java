@@ -19,8 +19,8 @@ import org.jsoup.nodes.Element;
 import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Elements;
 
-import me.angrybyte.goose.texthelpers.StopWords;
-import me.angrybyte.goose.texthelpers.WordStats;
+import me.angrybyte.goose.NodeScores;
+import me.angrybyte.goose.texthelpers.NodeTextStats;
 
 /**
  * this class will be responsible for taking our top node and stripping out junk we don't want and getting it ready for how we want it
@@ -28,8 +28,12 @@ import me.angrybyte.goose.texthelpers.WordStats;
  */
 public class DefaultOutputFormatter implements OutputFormatter {
 
+    private static final NodeScores NO_SCORES = new NodeScores();
+
     private Element topNode;
 
+    private NodeScores scores = NO_SCORES;
+
     /**
      * Deprecated use {@link #getFormattedText(Element)}
      *
@@ -40,6 +44,7 @@ public class DefaultOutputFormatter implements OutputFormatter {
     public Element getFormattedElement(Element topNode) {
 
         this.topNode = topNode;
+        this.scores = NO_SCORES;
 
         removeNodesWithNegativeScores();
 
@@ -60,7 +65,19 @@ public class DefaultOutputFormatter implements OutputFormatter {
      * @return a formatted string with all HTML removed
      */
     public String getFormattedText(Element topNode) {
+        return getFormattedText(topNode, NO_SCORES);
+    }
+
+    /**
+     * Removes all unnecessary elements and formats the selected text nodes
+     *
+     * @param topNode the top most node to format
+     * @param scores  the node scores calculated while looking for the top node
+     * @return a formatted string with all HTML removed
+     */
+    public String getFormattedText(Element topNode, NodeScores scores) {
         this.topNode = topNode;
+        this.scores = scores;
         removeNodesWithNegativeScores();
 
         convertLinksToText();
@@ -78,7 +95,19 @@ public class DefaultOutputFormatter implements OutputFormatter {
      */
     @Override
     public String getFormattedTextForWebView(Element topNode) {
+        return getFormattedTextForWebView(topNode, NO_SCORES);
+    }
+
+    /**
+     * Same as {@link #getFormattedTextForWebView(Element)}, but also drops the nodes that scored negatively while looking for the top node
+     *
+     * @param topNode the top most node to format
+     * @param scores  the node scores calculated while looking for the top node
+     * @return a formatted string, with the formatting html tags kept
+     */
+    public String getFormattedTextForWebView(Element topNode, NodeScores scores) {
         this.topNode = topNode;
+        this.scores = scores;
         removeNodesWithNegativeScores();
 
         removeEmptyParagraphs();
@@ -149,15 +178,26 @@ public class DefaultOutputFormatter implements OutputFormatter {
      * if there are elements inside our top node that have a negative gravity score, let's give em the boot
      */
     private void removeNodesWithNegativeScores() {
-        Elements gravityItems = this.topNode.select("*[gravityScore]");
-        for (Element item : gravityItems) {
-            int score = Integer.parseInt(item.attr("gravityScore"));
-            if (score < 1) {
+        for (int i = 0; i < scores.size(); i++) {
+            Element item = scores.getNode(i);
+            if (scores.getScoreAt(i) < 1 && item.parent() != null && isInsideTopNode(item)) {
                 item.remove();
             }
         }
     }
 
+    /**
+     * Walks up the parents of this node to see if it's still attached somewhere under our top node
+     */
+    private boolean isInsideTopNode(Element node) {
+        for (Element current = node; current != null; current = current.parent()) {
+            if (current == topNode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * replace common tags with just text so we don't have any crazy formatting issues so replace <br>
      * , <i>, <strong>, etc.... with whatever text is inside them
@@ -187,13 +227,13 @@ public class DefaultOutputFormatter implements OutputFormatter {
      * Remove paragraphs that have less than x number of words, would indicate that it's some sort of link
      */
     private void removeParagraphsWithFewWords() {
+        // removing a node never changes the text of the nodes that come after it, so one measurement is enough for the whole loop
+        NodeTextStats textStats = NodeTextStats.compute(this.topNode);
         Elements allNodes = this.topNode.getAllElements();
         for (Element el : allNodes) {
             try {
                 // get stop words that appear in each node
-                WordStats stopWords = StopWords.getStopWordCount(el.text());
-
-                if (stopWords.getStopWordCount() < 5 && el.getElementsByTag("object").size() == 0
+                if (textStats.getStopWordCount(el) < 5 && el.getElementsByTag("object").size() == 0
                         && el.getElementsByTag("embed").size() == 0) {
                     el.remove();
                 }
@@ -206,13 +246,11 @@ public class DefaultOutputFormatter implements OutputFormatter {
      * Removes empty paragraph
      */
     private void removeEmptyParagraphs() {
+        NodeTextStats textStats = NodeTextStats.compute(this.topNode);
         Elements allNodes = this.topNode.getAllElements();
         for (Element el : allNodes) {
             try {
-                // get stop words that appear in each node
-                WordStats stopWords = StopWords.getStopWordCount(el.text());
-
-                if (el.text().trim().length() < 1 && el.getElementsByTag("object").size() == 0
+                if (textStats.getTextLength(el) < 1 && el.getElementsByTag("object").size() == 0
                         && el.getElementsByTag("embed").size() == 0) {
                     el.remove();
                 }
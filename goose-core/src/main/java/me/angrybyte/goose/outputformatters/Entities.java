@@ -1029,7 +1029,7 @@ public class Entities {
 
     static class LookupEntityMap extends PrimitiveEntityMap {
 
-        private String[] lookupTable;
+        private volatile String[] lookupTable;
 
         private int LOOKUP_TABLE_SIZE = 256;
 
@@ -1063,10 +1063,12 @@ public class Entities {
          * </p>
          */
         private void createLookupTable() {
-            lookupTable = new String[LOOKUP_TABLE_SIZE];
+            // fill the table first and publish it after, other threads may be reading it at the same time
+            String[] table = new String[LOOKUP_TABLE_SIZE];
             for (int i = 0; i < LOOKUP_TABLE_SIZE; ++i) {
-                lookupTable[i] = super.name(i);
+                table[i] = super.name(i);
             }
+            lookupTable = table;
         }
     }
 
@@ -0,0 +1,39 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.rules;
+
+/**
+ * What a rule in a {@link RulePack} does with the elements it matches. The name of each is the word that starts the rule's line in a pack.
+ */
+public enum RuleAction {
+
+    /**
+     * the element and everything in it is removed before the content is looked for
+     */
+    REMOVE,
+
+    /**
+     * the element is replaced with its children, for wrappers that break up the paragraphs of an article
+     */
+    UNWRAP,
+
+    /**
+     * the first image in the element is the top image of the page
+     */
+    IMAGE,
+
+    /**
+     * the element holds the content of the article, so it's the top node without clustering
+     */
+    CONTENT
+
+}
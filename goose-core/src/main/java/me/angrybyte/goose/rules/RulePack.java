@@ -0,0 +1,460 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.rules;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeVisitor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The compiled rules for one site (or for all of them). A pack is plain text, one rule per line: an action and a selector, like
+ * <pre>
+ *     # the share buttons between the paragraphs
+ *     remove .share-bar
+ *     unwrap .inline-wrapper
+ *     image #lead-photo .lead-photo
+ *     content .article-body
+ * </pre>
+ * The action is one of the {@link RuleAction}s, the selector is a tag name, <code>#id</code> or <code>.class</code>. Lines starting with
+ * <code>#</code> are comments. Classes match whatever their case, like they do in jSoup.
+ * <p/>
+ * An image or content rule can have more selectors after the first one, they are only looked for if the ones before them found nothing in
+ * the page: <code>image #lead-photo .lead-photo</code> takes the element with the id even if there's no image in it, and only looks for the
+ * class when no element has the id. For the cleaning rules every selector is a rule of its own.
+ * <p/>
+ * The rules are indexed by tag, id and class, so an element is checked against all of them with a hash lookup for its tag, its id and each
+ * of its classes, no matter how many rules there are. When more than one image or content rule finds something, the one written last wins,
+ * which is how a site's pack overrides the global one. Packs don't change once they're compiled, so they can be shared between threads.
+ */
+public class RulePack {
+
+    public static final RulePack EMPTY = new RulePack(new ArrayList<Rule>());
+
+    private static final int[] NONE = new int[0];
+
+    private final List<Rule> rules;
+    // the selectors of all rules one after the other, which rule each one belongs to and where the selectors of each rule start
+    private final int[] ruleOfSelector;
+    private final int[] firstSelector;
+    private final Index cleaning = new Index();
+    private final Index images = new Index();
+    private final Index contents = new Index();
+
+    private RulePack(List<Rule> rules) {
+        this.rules = rules;
+        int selectors = 0;
+        for (Rule rule : rules) {
+            selectors += rule.kinds.length;
+        }
+
+        ruleOfSelector = new int[selectors];
+        firstSelector = new int[rules.size()];
+        int selector = 0;
+        for (int order = 0; order < rules.size(); order++) {
+            Rule rule = rules.get(order);
+            firstSelector[order] = selector;
+            for (int i = 0; i < rule.kinds.length; i++, selector++) {
+                ruleOfSelector[selector] = order;
+                switch (rule.action) {
+                    case REMOVE:
+                    case UNWRAP:
+                        cleaning.add(rule.kinds[i], rule.names[i], selector);
+                        break;
+                    case IMAGE:
+                        images.add(rule.kinds[i], rule.names[i], selector);
+                        break;
+                    case CONTENT:
+                        contents.add(rule.kinds[i], rule.names[i], selector);
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads and compiles a pack
+     *
+     * @throws IllegalArgumentException if a line is not a rule, the message says which one
+     */
+    public static RulePack parse(Reader reader) throws IOException, IllegalArgumentException {
+        BufferedReader lines = new BufferedReader(reader);
+        ArrayList<Rule> rules = new ArrayList<>();
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            rules.add(Rule.parse(line, number));
+        }
+        return rules.isEmpty() ? EMPTY : new RulePack(rules);
+    }
+
+    /**
+     * @return a pack with the rules of this one, followed by the rules of the other one
+     */
+    RulePack merge(RulePack other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        ArrayList<Rule> merged = new ArrayList<>(rules);
+        merged.addAll(other.rules);
+        return new RulePack(merged);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * @return how many rules there are
+     */
+    @SuppressWarnings("unused")
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * @return <code>true</code> if there's a {@link RuleAction#REMOVE} or {@link RuleAction#UNWRAP} rule, if not there's no need to ask
+     */
+    public boolean hasCleaningRules() {
+        return !cleaning.isEmpty();
+    }
+
+    /**
+     * @return {@link RuleAction#REMOVE} or {@link RuleAction#UNWRAP} if a rule matches the element (removing wins if both do), or
+     * <code>null</code> if the element stays as it is
+     */
+    public RuleAction getCleaningAction(Element element) {
+        if (cleaning.isEmpty()) {
+            return null;
+        }
+
+        RuleAction action = null;
+        for (int selector : matching(cleaning, element)) {
+            action = rules.get(ruleOfSelector[selector]).action;
+            if (action == RuleAction.REMOVE) {
+                break;
+            }
+        }
+        return action;
+    }
+
+    /**
+     * Looks for the elements that the {@link RuleAction#IMAGE} rules point to
+     *
+     * @return the first image in the element of the last rule that found one with an image, or <code>null</code> if none did
+     */
+    public Element findKnownImage(Document doc) {
+        if (images.isEmpty()) {
+            return null;
+        }
+
+        Element image = null;
+        for (Element known : findKnownElements(images, doc)) {
+            if (known != null) {
+                Element found = known.getElementsByTag("img").first();
+                if (found != null) {
+                    image = found;
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Looks for the element that holds the content of the article
+     *
+     * @return the first element that the last matching {@link RuleAction#CONTENT} rule found, or <code>null</code> if no rule found one
+     */
+    public Element findKnownContent(Document doc) {
+        if (contents.isEmpty()) {
+            return null;
+        }
+
+        Element content = null;
+        for (Element known : findKnownElements(contents, doc)) {
+            if (known != null) {
+                content = known;
+            }
+        }
+        return content;
+    }
+
+    /**
+     * @return the element each rule found with the first of its selectors that found one, indexed by the rule's order in the pack
+     */
+    private Element[] findKnownElements(Index index, Document doc) {
+        Element[] firstMatches = findFirstMatches(index, doc);
+        Element[] known = new Element[rules.size()];
+        for (int order = 0; order < rules.size(); order++) {
+            int end = firstSelector[order] + rules.get(order).kinds.length;
+            for (int selector = firstSelector[order]; selector < end && known[order] == null; selector++) {
+                known[order] = firstMatches[selector];
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Walks the document once, and stops looking as soon as every selector of the index found something
+     *
+     * @return the first element each selector matched in document order, indexed by the selector's place in the pack
+     */
+    private Element[] findFirstMatches(final Index index, Document doc) {
+        final Element[] firstMatches = new Element[ruleOfSelector.length];
+        doc.traverse(new NodeVisitor() {
+            int left = index.size;
+
+            @Override
+            public void head(Node node, int depth) {
+                if (left == 0 || !(node instanceof Element)) {
+                    return;
+                }
+                for (int selector : matching(index, (Element) node)) {
+                    if (firstMatches[selector] == null) {
+                        firstMatches[selector] = (Element) node;
+                        left--;
+                    }
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+            }
+        });
+        return firstMatches;
+    }
+
+    /**
+     * @return the place of every selector of the index that matches the element, a selector can be in there twice
+     */
+    private static int[] matching(Index index, Element element) {
+        int[] found = concat(NONE, index.tags.get(element.tagName()));
+        if (!index.ids.isEmpty()) {
+            found = concat(found, index.ids.get(element.id()));
+        }
+        if (!index.classes.isEmpty()) {
+            String className = element.attr("class");
+            int length = className.length();
+            int start = 0;
+            while (start < length) {
+                while (start < length && Character.isWhitespace(className.charAt(start))) {
+                    start++;
+                }
+                int end = start;
+                while (end < length && !Character.isWhitespace(className.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    found = concat(found, index.classes.get(className, start, end));
+                }
+                start = end;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return both arrays in one, without copying if one of them is empty
+     */
+    private static int[] concat(int[] first, int[] second) {
+        if (second == null || second.length == 0) {
+            return first;
+        }
+        if (first.length == 0) {
+            return second;
+        }
+        int[] both = new int[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private static final class Rule {
+
+        final RuleAction action;
+        // the selectors in the order they're tried, the kind is '#' for ids, '.' for classes and ' ' for tags
+        final char[] kinds;
+        final String[] names;
+
+        Rule(RuleAction action, char[] kinds, String[] names) {
+            this.action = action;
+            this.kinds = kinds;
+            this.names = names;
+        }
+
+        static Rule parse(String line, int number) {
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Line " + number + " is not an action and a selector: " + line);
+            }
+
+            RuleAction action;
+            try {
+                action = RuleAction.valueOf(parts[0].toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + number + " has an unknown action: " + parts[0]);
+            }
+
+            char[] kinds = new char[parts.length - 1];
+            String[] names = new String[parts.length - 1];
+            for (int i = 1; i < parts.length; i++) {
+                String selector = parts[i];
+                char kind = selector.charAt(0);
+                if (kind == '#' || kind == '.') {
+                    kinds[i - 1] = kind;
+                    names[i - 1] = checkName(selector.substring(1), line, number);
+                    continue;
+                }
+
+                for (int j = 0; j < selector.length(); j++) {
+                    if (!Character.isLetterOrDigit(selector.charAt(j))) {
+                        throw new IllegalArgumentException("Line " + number + " has a bad tag name: " + selector);
+                    }
+                }
+                kinds[i - 1] = ' ';
+                names[i - 1] = selector.toLowerCase(Locale.ENGLISH);
+            }
+            return new Rule(action, kinds, names);
+        }
+
+        private static String checkName(String name, String line, int number) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Line " + number + " has no name in its selector: " + line);
+            }
+            return name;
+        }
+    }
+
+    /**
+     * The selectors of the rules that have one of the actions, by tag, id and class
+     */
+    private static final class Index {
+
+        final HashMap<String, int[]> tags = new HashMap<>();
+        final HashMap<String, int[]> ids = new HashMap<>();
+        final ClassTable classes = new ClassTable();
+        int size;
+
+        void add(char kind, String name, int selector) {
+            if (kind == '.') {
+                classes.add(name, selector);
+            } else {
+                HashMap<String, int[]> byName = kind == '#' ? ids : tags;
+                byName.put(name, concat(byName.containsKey(name) ? byName.get(name) : NONE, new int[] {selector}));
+            }
+            size++;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * The class selectors by class name, whatever its case. A class can be looked up right in the attribute, without cutting it out of it
+     * first.
+     */
+    private static final class ClassTable {
+
+        // open addressing, the slots are a power of two and at most half full
+        private String[] names = new String[16];
+        private int[] hashes = new int[16];
+        private int[][] selectors = new int[16][];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(String name, int selector) {
+            int slot = find(name, 0, name.length(), hash(name, 0, name.length()));
+            if (names[slot] != null) {
+                selectors[slot] = concat(selectors[slot], new int[] {selector});
+                return;
+            }
+
+            names[slot] = name;
+            hashes[slot] = hash(name, 0, name.length());
+            selectors[slot] = new int[] {selector};
+            if (++size * 2 > names.length) {
+                grow();
+            }
+        }
+
+        /**
+         * @return the selectors for the class between start and end of the attribute, or <code>null</code> if there are none
+         */
+        int[] get(String attribute, int start, int end) {
+            int slot = find(attribute, start, end, hash(attribute, start, end));
+            return selectors[slot];
+        }
+
+        private int find(String text, int start, int end, int hash) {
+            int mask = names.length - 1;
+            int slot = hash & mask;
+            while (names[slot] != null) {
+                String name = names[slot];
+                if (hashes[slot] == hash && name.length() == end - start && name.regionMatches(true, 0, text, start, end - start)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            String[] oldNames = names;
+            int[][] oldSelectors = selectors;
+            names = new String[oldNames.length * 2];
+            hashes = new int[names.length];
+            selectors = new int[names.length][];
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    int hash = hash(oldNames[i], 0, oldNames[i].length());
+                    int slot = find(oldNames[i], 0, oldNames[i].length(), hash);
+                    names[slot] = oldNames[i];
+                    hashes[slot] = hash;
+                    selectors[slot] = oldSelectors[i];
+                }
+            }
+        }
+
+        /**
+         * Folds the case the same way {@link String#regionMatches(boolean, int, String, int, int)} does, so equal names hash the same
+         */
+        private static int hash(String text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+            }
+            // spread the high bits, the slots only look at the low ones
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import me.angrybyte.goose.GooseLog;
+
+/**
+ * Finds the {@link RulePack} for a page. The global pack applies to every site, and every domain can have a pack of its own: a page from
+ * <code>news.example.com</code> gets the global rules, then the ones for <code>example.com</code>, then the ones for
+ * <code>news.example.com</code>. A pack is only read the first time a page from its domain comes along, and the compiled rules for the most
+ * recently used hosts are kept. Hosts without a pack of their own share the global one, so any number of site packs costs nothing for the
+ * pages of other sites.
+ * <p/>
+ * A pack that can't be read or has a broken rule is logged and left out. One instance can be shared by any number of extractors and threads.
+ */
+public class RulePacks {
+
+    private static final String TAG = RulePacks.class.getSimpleName();
+
+    /**
+     * the name of the pack with the rules for every site
+     */
+    public static final String GLOBAL = "global";
+
+    private static final int DEFAULT_MAX_HOSTS = 256;
+    private static final Pattern DOMAIN_PATTERN = Pattern.compile("[a-z0-9.-]+");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * reads the packs from <code>me/angrybyte/goose/rules/&lt;name&gt;.rules</code> on the classpath
+     */
+    private static final RuleSource CLASSPATH = new RuleSource() {
+        @Override
+        public InputStream open(String name) {
+            return RulePacks.class.getResourceAsStream(name + ".rules");
+        }
+    };
+
+    private final RuleSource source;
+    private final int maxHosts;
+    private final LinkedHashMap<String, RulePack> hosts;
+    private RulePack global;
+
+    /**
+     * Reads the packs that come with goose, from the classpath
+     */
+    public RulePacks() {
+        this(CLASSPATH, DEFAULT_MAX_HOSTS);
+    }
+
+    /**
+     * @param source where to read the packs from
+     * @param maxHosts how many hosts to keep the compiled rules of, the least recently used ones are forgotten first
+     */
+    public RulePacks(RuleSource source, final int maxHosts) {
+        if (source == null)
+            throw new IllegalArgumentException("source must not be null!");
+        if (maxHosts < 1)
+            throw new IllegalArgumentException("maxHosts must be positive!");
+
+        this.source = source;
+        this.maxHosts = maxHosts;
+        this.hosts = new LinkedHashMap<String, RulePack>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RulePack> eldest) {
+                return size() > RulePacks.this.maxHosts;
+            }
+        };
+    }
+
+    /**
+     * @return the rules for the page, just the global ones if the url has no host
+     */
+    public RulePack forUrl(String url) {
+        try {
+            return forHost(new URL(url).getHost());
+        } catch (MalformedURLException e) {
+            return getGlobal();
+        }
+    }
+
+    /**
+     * @return the rules for the pages of the host
+     */
+    public RulePack forHost(String host) {
+        if (host == null || host.isEmpty()) {
+            return getGlobal();
+        }
+
+        host = host.toLowerCase(Locale.ENGLISH);
+        synchronized (hosts) {
+            RulePack known = hosts.get(host);
+            if (known != null) {
+                return known;
+            }
+        }
+
+        // reading happens outside of the lock, two threads might both read the same packs but they get the same rules
+        RulePack pack = getGlobal();
+        // the parent domains first, so the more specific rules come later and win, but not the top level domain on its own
+        int dot = host.lastIndexOf('.');
+        dot = dot > 0 ? host.lastIndexOf('.', dot - 1) : -1;
+        while (true) {
+            pack = pack.merge(read(host.substring(dot + 1)));
+            if (dot < 0) {
+                break;
+            }
+            dot = host.lastIndexOf('.', dot - 1);
+        }
+
+        synchronized (hosts) {
+            hosts.put(host, pack);
+        }
+        return pack;
+    }
+
+    private RulePack getGlobal() {
+        synchronized (hosts) {
+            if (global != null) {
+                return global;
+            }
+        }
+
+        RulePack pack = read(GLOBAL);
+        synchronized (hosts) {
+            global = pack;
+        }
+        return pack;
+    }
+
+    /**
+     * @return the compiled pack, or {@link RulePack#EMPTY} if there's none or it's broken
+     */
+    private RulePack read(String name) {
+        if (!DOMAIN_PATTERN.matcher(name).matches()) {
+            return RulePack.EMPTY;
+        }
+
+        InputStream stream = null;
+        try {
+            stream = source.open(name);
+            if (stream == null) {
+                return RulePack.EMPTY;
+            }
+            return RulePack.parse(new InputStreamReader(stream, UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            GooseLog.e(TAG, "Cannot read the rule pack " + name, e);
+            return RulePack.EMPTY;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where {@link RulePacks} reads the packs from. The default one reads them from the classpath, next to this class.
+ */
+public interface RuleSource {
+
+    /**
+     * Opens a pack for reading, the caller closes it
+     *
+     * @param name the domain the pack is for, like <code>example.com</code>, or {@link RulePacks#GLOBAL} for the one that applies to every site
+     * @return the pack's text in UTF-8, or <code>null</code> if there's no pack with that name
+     */
+    InputStream open(String name) throws IOException;
+
+}
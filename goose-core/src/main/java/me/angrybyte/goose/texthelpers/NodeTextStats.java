@@ -0,0 +1,335 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.texthelpers;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Text statistics for every element under a root node, computed in one traversal. Calling {@link Element#text()} on nested nodes rebuilds the
+ * same text over and over, so instead we build the text of the whole tree once (the same way jSoup does it) and remember where each element's
+ * text starts and ends in it. Spaces and links are counted bottom-up during the same traversal, so word counts and link density cost no more
+ * than a lookup, and the stop word stats are counted the first time somebody asks for them.
+ * <p/>
+ * The stats are a snapshot: once the tree is modified in a way that changes the text of a node, compute them again. Elements that were not under
+ * the root at computation time are measured on the fly.
+ */
+public class NodeTextStats {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final IdentityHashMap<Element, Integer> index = new IdentityHashMap<>();
+    private final StringBuilder text = new StringBuilder();
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] spaceCounts = new int[INITIAL_CAPACITY];
+    private int[] linkCounts = new int[INITIAL_CAPACITY];
+    private int[] linkSpaces = new int[INITIAL_CAPACITY];
+    private WordStats[] wordStats = new WordStats[INITIAL_CAPACITY];
+    private int size;
+
+    private NodeTextStats() {}
+
+    /**
+     * Measures the root node and all of its child elements
+     *
+     * @param root where to start, usually the document or the top node
+     * @return the stats for the whole subtree
+     */
+    public static NodeTextStats compute(Element root) {
+        final NodeTextStats stats = new NodeTextStats();
+        root.traverse(stats.new Collector());
+        return stats;
+    }
+
+    /**
+     * @return the same as {@link Element#text()} would return for this node
+     */
+    public String getText(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return node.text();
+        }
+        int start = trimmedStart(slot);
+        int end = trimmedEnd(slot, start);
+        return text.substring(start, end);
+    }
+
+    /**
+     * @return the length of this node's text, without building the text
+     */
+    public int getTextLength(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return node.text().length();
+        }
+        int start = trimmedStart(slot);
+        return trimmedEnd(slot, start) - start;
+    }
+
+    /**
+     * @return stop word and word counts of this node's text, counted only once per node
+     */
+    public WordStats getWordStats(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return StopWords.getStopWordCount(node.text());
+        }
+        WordStats stats = wordStats[slot];
+        if (stats == null) {
+            stats = StopWords.getStopWordCount(getText(node));
+            wordStats[slot] = stats;
+        }
+        return stats;
+    }
+
+    public int getStopWordCount(Element node) {
+        return getWordStats(node).getStopWordCount();
+    }
+
+    @SuppressWarnings("unused")
+    public int getWordCount(Element node) {
+        return getWordStats(node).getWordCount();
+    }
+
+    /**
+     * @return how many pieces this node's text splits into when split on single spaces
+     */
+    public int getSpaceSeparatedWordCount(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return compute(node).getSpaceSeparatedWordCount(node);
+        }
+        return countTrimmedSpaces(slot) + 1;
+    }
+
+    /**
+     * @return how many link elements are in this node, including the node itself
+     */
+    public int getLinkCount(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return compute(node).getLinkCount(node);
+        }
+        return linkCounts[slot];
+    }
+
+    /**
+     * @return how many pieces the text of all links in this node splits into when glued together and split on single spaces
+     */
+    public int getLinkWordCount(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return compute(node).getLinkWordCount(node);
+        }
+        return linkSpaces[slot] + 1;
+    }
+
+    /**
+     * Same as <code>getLinkCount(node) * getLinkWordCount(node) / getSpaceSeparatedWordCount(node)</code>, with a single lookup
+     *
+     * @return how much of this node is links, 0 if it has none
+     */
+    public float getLinkDensity(Element node) {
+        Integer slot = index.get(node);
+        if (slot == null) {
+            return compute(node).getLinkDensity(node);
+        }
+
+        int links = linkCounts[slot];
+        if (links == 0) {
+            return 0;
+        }
+
+        float numberOfWords = countTrimmedSpaces(slot) + 1;
+        float numberOfLinkWords = linkSpaces[slot] + 1;
+        float linkDivisor = numberOfLinkWords / numberOfWords;
+        return linkDivisor * links;
+    }
+
+    /**
+     * @return how many spaces are in the node's text once it's trimmed, the trimmed ends are the only characters we look at
+     */
+    private int countTrimmedSpaces(int slot) {
+        int start = starts[slot];
+        int end = ends[slot];
+        int spaces = spaceCounts[slot];
+        while (start < end && text.charAt(start) <= ' ') {
+            if (text.charAt(start) == ' ') {
+                spaces--;
+            }
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            if (text.charAt(end - 1) == ' ') {
+                spaces--;
+            }
+            end--;
+        }
+        return spaces;
+    }
+
+    private int trimmedStart(int slot) {
+        int start = starts[slot];
+        int end = ends[slot];
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int slot, int trimmedStart) {
+        int end = ends[slot];
+        while (end > trimmedStart && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private int addSlot(Element node) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = grow(starts, capacity);
+            ends = grow(ends, capacity);
+            spaceCounts = grow(spaceCounts, capacity);
+            linkCounts = grow(linkCounts, capacity);
+            linkSpaces = grow(linkSpaces, capacity);
+            WordStats[] newWordStats = new WordStats[capacity];
+            System.arraycopy(wordStats, 0, newWordStats, 0, size);
+            wordStats = newWordStats;
+        }
+        index.put(node, size);
+        return size++;
+    }
+
+    private int[] grow(int[] array, int capacity) {
+        int[] grown = new int[capacity];
+        System.arraycopy(array, 0, grown, 0, size);
+        return grown;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    private static boolean preserveWhitespace(Node node) {
+        if (node instanceof Element) {
+            Element element = (Element) node;
+            return element.tag().preserveWhitespace() || element.parent() != null && element.parent().tag().preserveWhitespace();
+        }
+        return false;
+    }
+
+    /**
+     * Builds the text exactly like {@link Element#text()} does and keeps track of each element's range within it
+     */
+    private class Collector implements NodeVisitor {
+
+        // slots of the elements we're currently inside of, indexed by depth
+        private int[] openSlots = new int[32];
+
+        // how many spaces the text has so far
+        private int spaces;
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof TextNode) {
+                appendNormalisedText((TextNode) node);
+            } else if (node instanceof Element) {
+                Element element = (Element) node;
+                if (text.length() > 0 && (element.isBlock() || element.tagName().equals("br")) && !lastCharIsWhitespace()) {
+                    appendSpace();
+                }
+
+                int slot = addSlot(element);
+                starts[slot] = text.length();
+                spaceCounts[slot] = spaces;
+                if (depth == openSlots.length) {
+                    int[] newOpenSlots = new int[depth * 2];
+                    System.arraycopy(openSlots, 0, newOpenSlots, 0, depth);
+                    openSlots = newOpenSlots;
+                }
+                openSlots[depth] = slot;
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (!(node instanceof Element)) {
+                return;
+            }
+
+            int slot = openSlots[depth];
+            ends[slot] = text.length();
+            spaceCounts[slot] = spaces - spaceCounts[slot];
+
+            if (((Element) node).tagName().equals("a")) {
+                linkCounts[slot]++;
+                linkSpaces[slot] += countTrimmedSpaces(slot);
+            }
+
+            if (depth > 0) {
+                int parentSlot = openSlots[depth - 1];
+                linkCounts[parentSlot] += linkCounts[slot];
+                linkSpaces[parentSlot] += linkSpaces[slot];
+            }
+        }
+
+        private void appendNormalisedText(TextNode textNode) {
+            String wholeText = textNode.getWholeText();
+            if (preserveWhitespace(textNode.parent())) {
+                text.append(wholeText);
+                for (int i = 0; i < wholeText.length(); i++) {
+                    if (wholeText.charAt(i) == ' ') {
+                        spaces++;
+                    }
+                }
+                return;
+            }
+
+            boolean stripLeading = lastCharIsWhitespace();
+            boolean lastWasWhite = false;
+            boolean reachedNonWhite = false;
+            int length = wholeText.length();
+            int c;
+            for (int i = 0; i < length; i += Character.charCount(c)) {
+                c = wholeText.codePointAt(i);
+                if (isWhitespace(c)) {
+                    if ((stripLeading && !reachedNonWhite) || lastWasWhite) {
+                        continue;
+                    }
+                    appendSpace();
+                    lastWasWhite = true;
+                } else {
+                    text.appendCodePoint(c);
+                    lastWasWhite = false;
+                    reachedNonWhite = true;
+                }
+            }
+        }
+
+        private void appendSpace() {
+            text.append(' ');
+            spaces++;
+        }
+
+        private boolean lastCharIsWhitespace() {
+            return text.length() != 0 && text.charAt(text.length() - 1) == ' ';
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.texthelpers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Finds out which of many simple regex rules match a string, in one scan of the string. The rules are put into groups (one bit each), and
+ * {@link #match(String)} tells which groups had at least one rule that matched, the same way {@link java.util.regex.Matcher#find()} would.
+ * <p/>
+ * Rules that are a whole string (<code>^side$</code>) are looked up in a hash map, and the rest of the literal rules (<code>comment</code>,
+ * <code>^more</code>, <code>meta$</code>) go into one Aho-Corasick automaton. Anything else stays a regex, and it's only run when the automaton
+ * finds a literal that the regex can't match without.
+ * <p/>
+ * Build it once with a {@link Builder} and share it, matching doesn't change anything.
+ */
+public class RuleMatcher {
+
+    private static final int ROOT = 0;
+
+    private final Map<String, Integer> wholeValues;
+
+    // the automaton: labels and targets of each state's transitions, sorted by label, the failure links and the rules that end in each state
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failures;
+    private final Rule[][] outputs;
+
+    private RuleMatcher(Builder builder) {
+        wholeValues = new HashMap<>(builder.wholeValues);
+
+        int size = builder.trie.size();
+        labels = new char[size][];
+        targets = new int[size][];
+        failures = new int[size];
+        outputs = new Rule[size][];
+
+        for (int state = 0; state < size; state++) {
+            TreeMap<Character, Integer> transitions = builder.trie.get(state);
+            labels[state] = new char[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                labels[state][i] = transition.getKey();
+                targets[state][i] = transition.getValue();
+                i++;
+            }
+        }
+
+        // breadth first, so the failure state of every state is done before the state itself
+        List<List<Rule>> found = new ArrayList<>(builder.endings);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            failures[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                int failure = failures[state];
+                int next;
+                while ((next = step(failure, labels[state][i])) < 0 && failure != ROOT) {
+                    failure = failures[failure];
+                }
+                failures[child] = next < 0 ? ROOT : next;
+                // the rules of the failure state end wherever this state ends
+                List<Rule> rules = new ArrayList<>(found.get(child));
+                rules.addAll(found.get(failures[child]));
+                found.set(child, rules);
+                queue.add(child);
+            }
+        }
+
+        for (int state = 0; state < size; state++) {
+            outputs[state] = found.get(state).toArray(new Rule[found.get(state).size()]);
+        }
+    }
+
+    /**
+     * @return the groups of all the rules that can be found in the value, 0 if none
+     */
+    public int match(String value) {
+        int end = value.length();
+        // like $ does, ignore a line terminator at the very end
+        int trimmedEnd = end - finalLineTerminatorLength(value);
+
+        int groups = 0;
+        Integer wholeValue = wholeValues.get(value);
+        if (wholeValue != null) {
+            groups |= wholeValue;
+        }
+        if (trimmedEnd != end && (wholeValue = wholeValues.get(value.substring(0, trimmedEnd))) != null) {
+            groups |= wholeValue;
+        }
+
+        long triedPatterns = 0;
+        int state = ROOT;
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            int next;
+            while ((next = step(state, c)) < 0 && state != ROOT) {
+                state = failures[state];
+            }
+            state = next < 0 ? ROOT : next;
+
+            for (Rule rule : outputs[state]) {
+                if ((groups & rule.group) == rule.group) {
+                    continue;
+                }
+                if (rule.atStart && i + 1 != rule.length) {
+                    continue;
+                }
+                if (rule.atEnd && i + 1 != end && i + 1 != trimmedEnd) {
+                    continue;
+                }
+                if (rule.pattern != null) {
+                    long bit = 1L << rule.patternIndex;
+                    if ((triedPatterns & bit) != 0) {
+                        continue;
+                    }
+                    triedPatterns |= bit;
+                    if (!rule.pattern.matcher(value).find()) {
+                        continue;
+                    }
+                }
+                groups |= rule.group;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * @return the state the automaton goes to from the given state with the given char, -1 if there's no such transition
+     */
+    private int step(int state, char c) {
+        char[] stateLabels = labels[state];
+        int low = 0;
+        int high = stateLabels.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (stateLabels[middle] < c) {
+                low = middle + 1;
+            } else if (stateLabels[middle] > c) {
+                high = middle - 1;
+            } else {
+                return targets[state][middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Without {@link Pattern#MULTILINE}, <code>$</code> also matches right before one of these at the end of the input
+     */
+    private static int finalLineTerminatorLength(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return 0;
+        }
+        char last = value.charAt(length - 1);
+        if (last == '\n') {
+            return length > 1 && value.charAt(length - 2) == '\r' ? 2 : 1;
+        }
+        return last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029' ? 1 : 0;
+    }
+
+    private static final class Rule {
+
+        final int group;
+        final int length;
+        final boolean atStart;
+        final boolean atEnd;
+        final Pattern pattern;
+        final int patternIndex;
+
+        Rule(int group, int length, boolean atStart, boolean atEnd, Pattern pattern, int patternIndex) {
+            this.group = group;
+            this.length = length;
+            this.atStart = atStart;
+            this.atEnd = atEnd;
+            this.pattern = pattern;
+            this.patternIndex = patternIndex;
+        }
+    }
+
+    /**
+     * Collects the rules, then {@link #build()} compiles them
+     */
+    public static class Builder {
+
+        // a long keeps track of the patterns that were already tried during a match
+        private static final int MAX_PATTERNS = 64;
+        private static final String REGEX_CHARS = "\\[](){}.*+?^$|";
+
+        private final Map<String, Integer> wholeValues = new HashMap<>();
+        private final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        private final List<List<Rule>> endings = new ArrayList<>();
+        private int patterns;
+
+        public Builder() {
+            addState();
+        }
+
+        /**
+         * Adds a rule that's a literal string, optionally anchored with <code>^</code> and <code>$</code>
+         *
+         * @param group which group matches when this rule matches, one bit
+         * @param rule the rule, like <code>^side$</code> or <code>comment</code>
+         * @throws IllegalArgumentException if the rule is more than a literal and its anchors
+         */
+        public Builder add(int group, String rule) {
+            checkGroup(group);
+            boolean atStart = rule.startsWith("^");
+            boolean atEnd = rule.length() > (atStart ? 1 : 0) && rule.endsWith("$");
+            String literal = rule.substring(atStart ? 1 : 0, rule.length() - (atEnd ? 1 : 0));
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Rule must not be empty!");
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (REGEX_CHARS.indexOf(literal.charAt(i)) >= 0) {
+                    throw new IllegalArgumentException("Rule is not a literal: " + rule);
+                }
+            }
+
+            if (atStart && atEnd) {
+                Integer groups = wholeValues.get(literal);
+                wholeValues.put(literal, groups == null ? group : groups | group);
+            } else {
+                addLiteral(literal, new Rule(group, literal.length(), atStart, atEnd, null, 0));
+            }
+            return this;
+        }
+
+        /**
+         * Adds every alternative of a regex like <code>^side$|combx|meta$</code> as its own rule
+         *
+         * @see #add(int, String)
+         */
+        public Builder addAlternatives(int group, String alternatives) {
+            for (String rule : alternatives.split("\\|")) {
+                add(group, rule);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a rule that needs a real regex. The regex is only run on strings that have the literal in them, so the literal must be in
+         * every string the regex can find something in.
+         */
+        public Builder addPattern(int group, String literal, Pattern pattern) {
+            checkGroup(group);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Literal must not be empty!");
+            }
+            if (patterns == MAX_PATTERNS) {
+                throw new IllegalArgumentException("There can't be more than " + MAX_PATTERNS + " patterns!");
+            }
+            addLiteral(literal, new Rule(group, literal.length(), false, false, pattern, patterns++));
+            return this;
+        }
+
+        public RuleMatcher build() {
+            return new RuleMatcher(this);
+        }
+
+        private void addLiteral(String literal, Rule rule) {
+            int state = ROOT;
+            for (int i = 0; i < literal.length(); i++) {
+                Integer next = trie.get(state).get(literal.charAt(i));
+                if (next == null) {
+                    next = addState();
+                    trie.get(state).put(literal.charAt(i), next);
+                }
+                state = next;
+            }
+            endings.get(state).add(rule);
+        }
+
+        private int addState() {
+            trie.add(new TreeMap<Character, Integer>());
+            endings.add(new ArrayList<Rule>());
+            return trie.size() - 1;
+        }
+
+        private static void checkGroup(int group) {
+            if (Integer.bitCount(group) != 1) {
+                throw new IllegalArgumentException("Group must be a single bit!");
+            }
+        }
+    }
+
+}
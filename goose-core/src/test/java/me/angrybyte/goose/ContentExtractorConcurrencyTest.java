@@ -0,0 +1,102 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the same pages through one shared extractor from many threads at once and checks that every result matches the single threaded one
+ */
+public class ContentExtractorConcurrencyTest {
+
+    private static final int PAGES = 24;
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void sharedExtractorMatchesSingleThreadedRuns() throws Exception {
+        Configuration config = new Configuration(System.getProperty("java.io.tmpdir"));
+        config.setEnableImageFetching(false);
+        final ContentExtractor extractor = new ContentExtractor(config);
+
+        final List<String> pages = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < PAGES; i++) {
+            pages.add(page(i));
+            expected.add(summarize(extractor.extractContent(url(i), pages.get(i), i % 2 == 0)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < PAGES; i++) {
+                    final int page = (i + round) % PAGES;
+                    results.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return summarize(extractor.extractContent(url(page), pages.get(page), page % 2 == 0));
+                        }
+                    }));
+                }
+            }
+
+            int index = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < PAGES; i++) {
+                    int page = (i + round) % PAGES;
+                    assertEquals("page " + page + " in round " + round, expected.get(page), results.get(index++).get());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String url(int page) {
+        return "http://example" + page % 3 + ".com/2019/03/" + page + "/article.html";
+    }
+
+    private static String page(int page) {
+        StringBuilder html = new StringBuilder("<html><head><title>Article number ").append(page).append(" &amp; friends | Example</title>");
+        html.append("<meta name=\"description\" content=\"The description of article ").append(page).append("\">");
+        html.append("<meta name=\"keywords\" content=\"news, page").append(page).append("\">");
+        html.append("</head><body><div class=\"navbar\"><a href=\"/\">Home</a> <a href=\"/news\">News</a></div>");
+        html.append("<div id=\"content\">");
+        for (int i = 0; i < 3 + page % 5; i++) {
+            html.append("<div><p>Paragraph ").append(i).append(" of article ").append(page)
+                    .append(" says that the thing they were talking about is, in the end, more &quot;interesting&quot; than it was")
+                    .append(" when it first came up, and that it will be looked at again &eacute;very week.</p>");
+            if (i % 2 == 1) {
+                html.append("<span>Some loose text with a <a href=\"/more/").append(i).append("\">link</a> in the middle of it.</span>");
+            }
+            html.append("</div>");
+        }
+        html.append("<div class=\"tags\"><a rel=\"tag\" href=\"/tag/a\">tag").append(page).append("</a></div>");
+        html.append("</div><div class=\"footer\">Copyright</div></body></html>");
+        return html.toString();
+    }
+
+    private static String summarize(Article article) {
+        return article.getTitle() + "\n" + article.getMetaDescription() + "\n" + article.getMetaKeywords()
+                + "\n" + article.getTags() + "\n" + article.getCanonicalLink() + "\n" + article.getCleanedArticleText();
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContentExtractorTest {
+
+    private static final String PARAGRAPH = "This paragraph has enough of the words that are stop words in it, and it is the same in both places.";
+
+    /**
+     * Both divs and the body end up with the same score here, the first one scored has to win every time
+     */
+    @Test
+    public void breaksTiesForTheFirstScored() {
+        String html = "<html><head><title>Ties</title></head><body><div id=\"first\"><p>" + PARAGRAPH + "</p></div><div id=\"second\"><p>"
+                + PARAGRAPH + "</p></div></body></html>";
+        assertTopNode("first", html);
+    }
+
+    /**
+     * The paragraphs are scored before the table cells, so the div around the paragraph wins the tie with the row around the cell even
+     * though the table comes first in the page
+     */
+    @Test
+    public void breaksTiesForTheParagraphsBeforeTheCells() {
+        String html = "<html><head><title>Ties</title></head><body><table><tr id=\"row\"><td>" + PARAGRAPH + "</td></tr></table>"
+                + "<div id=\"later\"><p>" + PARAGRAPH + "</p></div></body></html>";
+        assertTopNode("later", html);
+    }
+
+    private static void assertTopNode(String id, String html) {
+        Configuration config = new Configuration(System.getProperty("java.io.tmpdir"));
+        config.setEnableImageFetching(false);
+        ContentExtractor extractor = new ContentExtractor(config);
+        for (int i = 0; i < 20; i++) {
+            Article article = extractor.extractContent("http://example.com/ties/" + i, html, false);
+            assertEquals(id, article.getTopNode().id());
+        }
+    }
+
+}
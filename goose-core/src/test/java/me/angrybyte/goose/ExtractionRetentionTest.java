@@ -0,0 +1,102 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Makes sure nothing keeps the parsed page and the extraction state alive after the caller is done with them
+ */
+public class ExtractionRetentionTest {
+
+    private static final String HTML = "<html><head><title>Retained</title></head><body><div id=\"content\">"
+            + "<p>The first paragraph of the article, with enough words, commas, and stop words in it to be picked as the content.</p>"
+            + "<p>The second paragraph of the article, which is just as long, and just as boring, as the first one was.</p>"
+            + "<embed src=\"http://www.youtube.com/v/abc\">"
+            + "</div><div class=\"footer\">Copyright</div></body></html>";
+
+    private WeakReference<ExtractionContext> context;
+    private WeakReference<Document> document;
+
+    @Test
+    public void droppedResultsLeaveNothingBehind() {
+        for (ResultMode mode : ResultMode.values()) {
+            assertNotNull(extract(mode));
+            // the article is dropped right away, so everything has to go
+            assertCollected(mode + " context", context);
+            assertCollected(mode + " document", document);
+        }
+    }
+
+    @Test
+    public void detachedResultsLetGoOfTheDocument() {
+        Article article = extract(ResultMode.DETACHED);
+        assertCollected("context", context);
+        assertCollected("document", document);
+
+        assertNotNull(article.getTopNode());
+        assertEquals(1, article.getMovies().size());
+        assertEquals(2, article.getTopNode().getElementsByTag("p").size());
+    }
+
+    @Test
+    public void leanResultsLetGoOfTheDocument() {
+        Article article = extract(ResultMode.LEAN);
+        assertCollected("context", context);
+        assertCollected("document", document);
+
+        assertNull(article.getTopNode());
+        assertEquals(1, article.getMovieUrls().size());
+        assertNotNull(article.getCleanedArticleText());
+    }
+
+    /**
+     * Runs the stages the same way {@link ContentExtractor} does and keeps only weak references to the context and the document
+     */
+    private Article extract(ResultMode mode) {
+        Configuration config = new Configuration(System.getProperty("java.io.tmpdir"));
+        config.setEnableImageFetching(false);
+        config.setResultMode(mode);
+        ContentExtractor extractor = new ContentExtractor(config);
+
+        ExtractionContext context = extractor.createContext("http://example.com/retained.html", HTML, false);
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            extractor.runStage(stage, context);
+        }
+        assertNull(context.getError());
+        assertNotNull(context.getDocument());
+
+        this.context = new WeakReference<>(context);
+        this.document = new WeakReference<>(context.getDocument());
+        return extractor.finish(context);
+    }
+
+    private static void assertCollected(String what, WeakReference<?> reference) {
+        ArrayList<byte[]> garbage = new ArrayList<>();
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            garbage.add(new byte[1024 * 1024]);
+            if (garbage.size() > 8) {
+                garbage.clear();
+            }
+            System.gc();
+        }
+        assertNull(what + " is still reachable", reference.get());
+    }
+
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The pruned page has to parse into the tree jSoup builds from the whole page, once its scripts, styles and comments are taken out
+ */
+public class HtmlPrunerTest {
+
+    private static final String JSON_LD = "<script type=\"application/ld+json\">{\"headline\": \"</p><p>not markup\"}</script>";
+
+    private static final String[] PAGES = {
+            // scripts that escape their own end tags
+            "<p>a</p><script><!--<script>document.write('</script>');</script>--></script><p>b</p>",
+            "<p>a</p><script><!-- if (a</script><p>b</p>",
+            "<p>a</p><script><!--<script></script><p>still script</p>--></script><p>b</p>",
+            "<p>a</p><script>var s = '</scr' + 'ipt>';</script><p>b</p><script>x</SCRIPT ><p>c</p>",
+            "<p>a</p><script>unterminated <p>gone</p>",
+            // scripts inside elements whose text isn't markup
+            "<head><title>a <script>not a script</script> title</title></head><body><p>b</p></body>",
+            "<title>unclosed title <script>x</script><p>a</p>",
+            "<p>a</p><textarea><script>kept as text</script><!-- and this --></textarea><p>b</p>",
+            "<textarea>unclosed <style>p {}</style><p>a</p>",
+            "<p>a</p><xmp><script>kept</script><!-- too --></xmp><p>b</p>",
+            "<p>a</p><iframe><script>x</script></iframe><noembed><style>y</style></noembed><p>b</p>",
+            "<p>a</p><plaintext><script>everything after is text</script><p>b</p>",
+            // tags and attributes that only look like scripts
+            "<p title=\"<script>\" data-x='</script>'>a</p><script>x</script><p alt=<script>>b</p>",
+            "<p>a <scripted>b</scripted> <styles>c</styles></p><a href=\"/x?<!--\">d</a>",
+            "<p>a</p><script type=\"text/javascript\" src=\"/a.js\"/><p>b</p><svg><script>x</script><style>y</style></svg>",
+            // comments
+            "<p>a<!-- gone --> b</p><!-- <script>also gone</script> --><p>c</p>",
+            "<p>a</p><!-- unterminated <p>b</p>",
+            "<p>a</p><!--> <p>b</p><!---> <p>c</p><!-- a -- b --!><p>d</p>",
+            "<p>a</p><?php echo 'bogus' ?><p>b</p><! bogus too ><p>c</p><!doctype html><p>d</p>",
+            "<p>a <</p><p>b <a</p><p>c </></p><p>d <!</p><style>p {}</style>",
+            // styles and noscript
+            "<head><style>p { content: '</p>'; }</style><noscript><link rel=\"stylesheet\" href=\"/a.css\"></noscript></head>"
+                    + "<body><p>a</p><noscript><img src=\"/lazy.jpg\"></noscript></body>",
+            "<p>a</p><STYLE type=\"text/css\">b { }</STYLE><p>b</p><style>unterminated <p>c</p>",
+            // JSON-LD
+            "<head>" + JSON_LD + "<script>x</script></head><body><p>a</p>" + JSON_LD + "</body>",
+            "<p>a</p><script type='APPLICATION/LD+JSON '>{}</script><script type=\"application/ld+json+x\">{}</script><p>b</p>",
+    };
+
+    @Test
+    public void prunedPagesParseIntoTheSameTree() {
+        for (boolean keepJsonLd : new boolean[] {true, false}) {
+            HtmlPruner pruner = new HtmlPruner(keepJsonLd);
+            for (String html : PAGES) {
+                String pruned = pruner.prune(html);
+                assertEquals(html, expectedTree(html, keepJsonLd), tree(Jsoup.parse(pruned)));
+            }
+        }
+    }
+
+    @Test
+    public void keepsOrDropsJsonLd() {
+        String html = "<head>" + JSON_LD + "<script>var x;</script></head><body><p>a</p></body>";
+
+        Document kept = Jsoup.parse(new HtmlPruner().prune(html));
+        assertEquals(1, kept.getElementsByTag("script").size());
+        assertEquals("application/ld+json", kept.getElementsByTag("script").first().attr("type"));
+        assertTrue(kept.getElementsByTag("script").first().data().contains("not markup"));
+
+        Document dropped = Jsoup.parse(new HtmlPruner(false).prune(html));
+        assertEquals(0, dropped.getElementsByTag("script").size());
+    }
+
+    @Test
+    public void returnsPagesWithNothingToPruneAsTheyAre() {
+        String html = "<html><head><title>a</title></head><body><p title=\"<b>\">b</p><textarea><!-- c --></textarea></body></html>";
+        assertSame(html, new HtmlPruner().prune(html));
+    }
+
+    @Test
+    public void cutsTheTextOfPrunedNodesOut() {
+        String pruned = new HtmlPruner().prune("<p>a</p><script>var secret = 1;</script><style>.secret {}</style><!-- secret --><p>b</p>");
+        assertFalse(pruned.contains("secret"));
+    }
+
+    /**
+     * What jSoup makes of the whole page, with the nodes the pruner is meant to cut out taken out of the tree
+     */
+    private static String expectedTree(String html, boolean keepJsonLd) {
+        Document doc = Jsoup.parse(html);
+        for (Element element : doc.select("script, style")) {
+            boolean jsonLd = element.tagName().equals("script") && element.attr("type").trim().equalsIgnoreCase("application/ld+json");
+            if (!keepJsonLd || !jsonLd) {
+                element.remove();
+            }
+        }
+        removeComments(doc);
+        return tree(doc);
+    }
+
+    private static void removeComments(Node node) {
+        for (Node child : new ArrayList<>(node.childNodes())) {
+            if (child instanceof Comment) {
+                child.remove();
+            } else {
+                removeComments(child);
+            }
+        }
+    }
+
+    /**
+     * Writes the tree out one node per line, text nodes that end up next to each other are joined and the whitespace is collapsed because
+     * cutting a node out can leave the whitespace around it split differently
+     */
+    private static String tree(Document doc) {
+        StringBuilder out = new StringBuilder();
+        write(doc, 0, out);
+        return out.toString();
+    }
+
+    private static void write(Node node, int depth, StringBuilder out) {
+        StringBuilder text = new StringBuilder();
+        for (Node child : node.childNodes()) {
+            if (child instanceof TextNode) {
+                text.append(((TextNode) child).getWholeText());
+                continue;
+            }
+            writeText(text, depth, out);
+
+            indent(depth, out);
+            if (child instanceof Element) {
+                Element element = (Element) child;
+                out.append('<').append(element.tagName());
+                List<String> attributes = new ArrayList<>();
+                for (Attribute attribute : element.attributes()) {
+                    attributes.add(attribute.getKey() + "=" + attribute.getValue());
+                }
+                Collections.sort(attributes);
+                for (String attribute : attributes) {
+                    out.append(' ').append(attribute);
+                }
+                out.append(">\n");
+                write(element, depth + 1, out);
+            } else if (child instanceof DataNode) {
+                out.append("data ").append(((DataNode) child).getWholeData()).append('\n');
+            } else {
+                out.append(child.nodeName()).append(' ').append(child.outerHtml().trim()).append('\n');
+            }
+        }
+        writeText(text, depth, out);
+    }
+
+    private static void writeText(StringBuilder text, int depth, StringBuilder out) {
+        String collapsed = text.toString().replaceAll("\\s+", " ").trim();
+        text.setLength(0);
+        if (!collapsed.isEmpty()) {
+            indent(depth, out);
+            out.append("text ").append(collapsed).append('\n');
+        }
+    }
+
+    private static void indent(int depth, StringBuilder out) {
+        for (int i = 0; i < depth; i++) {
+            out.append("  ");
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class NodeScoresTest {
+
+    @Test
+    public void keepsScoresOnceTheArraysGrow() {
+        Document doc = Jsoup.parse("<body></body>");
+        ArrayList<Element> nodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            nodes.add(doc.body().appendElement("p"));
+        }
+
+        NodeScores scores = new NodeScores();
+        for (int i = 0; i < nodes.size(); i++) {
+            // the first write to each node is the one that can grow the arrays
+            scores.updateScore(nodes.get(i), i + 1);
+            scores.updateNodeCount(nodes.get(i), 1);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            scores.updateScore(nodes.get(i), 1);
+        }
+
+        assertEquals(nodes.size(), scores.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(i + 2, scores.getScore(nodes.get(i)));
+            assertEquals(1, scores.getNodeCount(nodes.get(i)));
+            assertEquals(nodes.get(i), scores.getNode(i));
+            assertEquals(i + 2, scores.getScoreAt(i));
+        }
+    }
+
+    @Test
+    public void growsOnANodeCountToo() {
+        Document doc = Jsoup.parse("<body></body>");
+        NodeScores scores = new NodeScores();
+        for (int i = 0; i < 40; i++) {
+            scores.updateNodeCount(doc.body().appendElement("div"), 2);
+        }
+        assertEquals(40, scores.size());
+        assertEquals(2, scores.getNodeCount(doc.body().child(39)));
+    }
+
+    @Test
+    public void extractsPagesWithManyScoredNodes() {
+        StringBuilder html = new StringBuilder("<html><head><title>Many blocks</title></head><body>");
+        for (int i = 0; i < 40; i++) {
+            html.append("<div><p>This is paragraph number ").append(i)
+                    .append(" of the article, and it has enough words, commas, and stop words in it to be scored as a good node.</p></div>");
+        }
+        html.append("</body></html>");
+
+        Configuration config = new Configuration(System.getProperty("java.io.tmpdir"));
+        config.setEnableImageFetching(false);
+        Article article = new ContentExtractor(config).extractContent("http://example.com/many", html.toString(), false);
+
+        assertNotNull(article.getTopNode());
+        assertEquals("body", article.getTopNode().tagName());
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cache;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import me.angrybyte.goose.Article;
+import me.angrybyte.goose.images.Image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleCodecTest {
+
+    @Test
+    public void keepsEveryValue() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200 * 1024) {
+            // more than 64k of it, and characters that take more than one byte
+            text.append("Some text of the article, with ünïcödé and 文字 in it. ");
+        }
+
+        Article article = new Article();
+        article.setTitle("A title");
+        article.setPublishDate(new Date(1234567890123L));
+        article.setMetaDescription("The description");
+        article.setMetaKeywords("some, keywords");
+        article.setCanonicalLink("http://www.example.com/story.html");
+        article.setCleanedArticleText(text.toString());
+        article.setTags(new HashSet<>(Arrays.asList("news", "world", "")));
+        article.setImageCandidates(new ArrayList<>(Arrays.asList("http://www.example.com/a.jpg", "http://www.example.com/b.jpg")));
+        article.setMovieUrls(new ArrayList<>(Arrays.asList("http://www.youtube.com/embed/x")));
+        HashMap<String, String> additionalData = new HashMap<>();
+        additionalData.put("author", "Someone");
+        additionalData.put("empty", null);
+        article.setAdditionalData(additionalData);
+
+        Image image = new Image();
+        image.setImageSrc("http://www.example.com/a.jpg");
+        image.setConfidenceScore(87.5);
+        image.setImageExtractionType("bigimage");
+        image.setBytes(123456);
+        article.setTopImage(image);
+
+        Article decoded = ArticleCodec.decode(ArticleCodec.encode(article));
+        assertEquals("A title", decoded.getTitle());
+        assertEquals(new Date(1234567890123L), decoded.getPublishDate());
+        assertEquals("The description", decoded.getMetaDescription());
+        assertEquals("some, keywords", decoded.getMetaKeywords());
+        assertEquals("http://www.example.com/story.html", decoded.getCanonicalLink());
+        assertEquals("www.example.com", decoded.getDomain());
+        assertEquals(text.toString(), decoded.getCleanedArticleText());
+        assertEquals(article.getTags(), decoded.getTags());
+        assertEquals(article.getImageCandidates(), decoded.getImageCandidates());
+        assertEquals(article.getMovieUrls(), decoded.getMovieUrls());
+        assertEquals(additionalData, decoded.getAdditionalData());
+        assertNotSame(additionalData, decoded.getAdditionalData());
+
+        Image decodedImage = decoded.getTopImage();
+        assertEquals("http://www.example.com/a.jpg", decodedImage.getImageSrc());
+        assertEquals(87.5, decodedImage.getConfidenceScore(), 0);
+        assertEquals("bigimage", decodedImage.getImageExtractionType());
+        assertEquals(123456, decodedImage.getBytes());
+
+        // nothing that needs the page comes back
+        assertNull(decoded.getRawHtml());
+        assertNull(decoded.getTopNode());
+        assertNull(decoded.getMovies());
+    }
+
+    @Test
+    public void keepsTheMissingValuesMissing() throws IOException {
+        Article article = new Article();
+        article.setImageCandidates(null);
+        article.setMovieUrls(null);
+
+        Article decoded = ArticleCodec.decode(ArticleCodec.encode(article));
+        assertNull(decoded.getTitle());
+        assertNull(decoded.getPublishDate());
+        assertNull(decoded.getMetaDescription());
+        assertNull(decoded.getMetaKeywords());
+        assertNull(decoded.getCanonicalLink());
+        assertEquals("", decoded.getDomain());
+        assertNull(decoded.getCleanedArticleText());
+        assertTrue(decoded.getTags().isEmpty());
+        assertTrue(decoded.getImageCandidates().isEmpty());
+        assertTrue(decoded.getMovieUrls().isEmpty());
+        assertNull(decoded.getAdditionalData());
+        assertNull(decoded.getTopImage());
+
+        Image image = new Image();
+        image.setImageExtractionType(null);
+        article.setTopImage(image);
+        Image decodedImage = ArticleCodec.decode(ArticleCodec.encode(article)).getTopImage();
+        assertNull(decodedImage.getImageSrc());
+        assertNull(decodedImage.getImageExtractionType());
+        assertEquals(0, decodedImage.getBytes());
+    }
+
+    @Test
+    public void skipsTheBytesOfOtherVersions() throws IOException {
+        byte[] encoded = ArticleCodec.encode(new Article());
+        for (int version : new int[] {0, 2, -1, Integer.MAX_VALUE}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(version);
+            out.write(encoded, 4, encoded.length - 4);
+            assertNull(ArticleCodec.decode(bytes.toByteArray()));
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import me.angrybyte.goose.images.ImageDetails;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LruImageCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        LruImageCache cache = new LruImageCache(3, 0);
+        cache.put("a", image(1));
+        cache.put("b", image(2));
+        cache.put("c", image(3));
+        assertNotNull(cache.get("a"));
+        cache.put("d", image(4));
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a").getContentLength());
+        assertEquals(3, cache.get("c").getContentLength());
+        assertEquals(4, cache.get("d").getContentLength());
+    }
+
+    @Test
+    public void keepsTheImagesAndTheirOrderAcrossAReopen() throws IOException {
+        File directory = folder.newFolder();
+        LruImageCache cache = new LruImageCache(3, 0, directory);
+        cache.put("a", new CachedImage(1, "image/png", details(640, 480, "image/png")));
+        cache.put("b", image(2));
+        cache.put("c", image(3));
+        cache.get("a");
+        // replaced, so it's the most recent now and has the new value
+        cache.put("b", image(20));
+        cache.put("x", image(5));
+        cache.close();
+
+        cache = new LruImageCache(3, 0, directory);
+        // c was the least recently used when it was closed, so it was pushed out by x, and a is next in line
+        assertNull(cache.get("c"));
+        cache.put("d", image(4));
+        assertNull(cache.get("a"));
+
+        assertEquals(20, cache.get("b").getContentLength());
+        assertEquals(5, cache.get("x").getContentLength());
+        assertEquals(4, cache.get("d").getContentLength());
+        cache.close();
+
+        cache = new LruImageCache(3, 0, directory);
+        CachedImage b = cache.get("b");
+        assertEquals(20, b.getContentLength());
+        assertNull(b.getContentType());
+        assertNull(b.getDetails());
+        cache.close();
+    }
+
+    @Test
+    public void keepsTheDetailsAcrossAReopen() throws IOException {
+        File directory = folder.newFolder();
+        LruImageCache cache = new LruImageCache(3, 0, directory);
+        cache.put("a", new CachedImage(1234, "image/png; charset=binary", details(640, 480, "image/png")));
+        cache.close();
+
+        CachedImage image = new LruImageCache(3, 0, directory).get("a");
+        assertEquals(1234, image.getContentLength());
+        assertEquals("image/png; charset=binary", image.getContentType());
+        assertEquals(640, image.getDetails().getWidth());
+        assertEquals(480, image.getDetails().getHeight());
+        assertEquals("image/png", image.getDetails().getMimeType());
+    }
+
+    @Test
+    public void dropsATornLastRecord() throws IOException {
+        File directory = folder.newFolder();
+        LruImageCache cache = new LruImageCache(10, 0, directory);
+        cache.put("a", image(1));
+        cache.put("b", image(2));
+        cache.close();
+
+        // a crash in the middle of writing the last record
+        File journal = journal(directory);
+        RandomAccessFile file = new RandomAccessFile(journal, "rw");
+        file.setLength(file.length() - 5);
+        file.close();
+
+        cache = new LruImageCache(10, 0, directory);
+        assertEquals(1, cache.get("a").getContentLength());
+        assertNull(cache.get("b"));
+        cache.put("c", image(3));
+        cache.close();
+
+        // the torn record is gone for good, the journal is readable to the end again
+        cache = new LruImageCache(10, 0, directory);
+        assertEquals(1, cache.get("a").getContentLength());
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c").getContentLength());
+        cache.close();
+    }
+
+    @Test
+    public void startsOverWithABrokenJournal() throws IOException {
+        File directory = folder.newFolder();
+        LruImageCache cache = new LruImageCache(10, 0, directory);
+        cache.put("a", image(1));
+        cache.close();
+
+        RandomAccessFile file = new RandomAccessFile(journal(directory), "rw");
+        file.writeInt(99);
+        file.close();
+
+        cache = new LruImageCache(10, 0, directory);
+        assertNull(cache.get("a"));
+        cache.put("b", image(2));
+        cache.close();
+        assertEquals(2, new LruImageCache(10, 0, directory).get("b").getContentLength());
+    }
+
+    @Test
+    public void rewritesTheJournalWithOnlyTheLiveImages() throws IOException {
+        File directory = folder.newFolder();
+        LruImageCache cache = new LruImageCache(2, 0, directory);
+        cache.put("a", image(1));
+        cache.put("b", image(2));
+        cache.put("c", image(3));
+        long withThree = journal(directory).length();
+
+        // every hit is a record, enough of them make the journal get rewritten
+        long longest = withThree;
+        long rewritten = -1;
+        for (int i = 0; i < 3000 && rewritten < 0; i++) {
+            cache.get(i % 2 == 0 ? "b" : "c");
+            long length = journal(directory).length();
+            if (length < longest) {
+                rewritten = length;
+            }
+            longest = Math.max(longest, length);
+        }
+        cache.close();
+
+        // the version and a record for each of the two images left, the third one and all the hits are gone
+        assertTrue(longest > 10 * withThree);
+        assertTrue(rewritten > 0 && rewritten < withThree);
+
+        cache = new LruImageCache(2, 0, directory);
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b").getContentLength());
+        assertEquals(3, cache.get("c").getContentLength());
+        cache.close();
+    }
+
+    @Test
+    public void forgetsExpiredImages() throws Exception {
+        File directory = folder.newFolder();
+        LruImageCache cache = new LruImageCache(10, 200, directory);
+        cache.put("old", image(1));
+        Thread.sleep(300);
+        cache.put("new", image(2));
+
+        assertNull(cache.get("old"));
+        assertEquals(2, cache.get("new").getContentLength());
+        cache.close();
+
+        // expired ones stay gone after a reopen, and the ones that expired in the meantime go too
+        Thread.sleep(300);
+        cache = new LruImageCache(10, 200, directory);
+        assertNull(cache.get("old"));
+        assertNull(cache.get("new"));
+        cache.close();
+
+        // no time to live keeps everything
+        cache = new LruImageCache(10, 0, directory);
+        cache.put("kept", image(3));
+        Thread.sleep(50);
+        assertEquals(3, cache.get("kept").getContentLength());
+        cache.close();
+    }
+
+    private static File journal(File directory) {
+        return new File(directory, "images.journal");
+    }
+
+    private static CachedImage image(int contentLength) {
+        return new CachedImage(contentLength, null, null);
+    }
+
+    private static ImageDetails details(int width, int height, String mimeType) {
+        ImageDetails details = new ImageDetails();
+        details.setWidth(width);
+        details.setHeight(height);
+        details.setMimeType(mimeType);
+        return details;
+    }
+
+}
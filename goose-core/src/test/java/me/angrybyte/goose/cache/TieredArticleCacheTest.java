@@ -0,0 +1,206 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import me.angrybyte.goose.Article;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TieredArticleCacheTest {
+
+    private static final long MINUTE = 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void givesAFreshCopyEveryTime() {
+        TieredArticleCache cache = new TieredArticleCache(10, 0);
+        Article article = article("first");
+        cache.put("a", article);
+        article.setTitle("changed");
+
+        Article cached = cache.get("a");
+        assertEquals("first", cached.getTitle());
+        cached.setTitle("changed");
+        assertEquals("first", cache.get("a").getTitle());
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedFromMemory() {
+        TieredArticleCache cache = new TieredArticleCache(2, 0);
+        cache.put("a", article("a"));
+        cache.put("b", article("b"));
+        cache.get("a");
+        cache.put("c", article("c"));
+
+        assertNull(cache.get("b"));
+        assertEquals("a", cache.get("a").getTitle());
+        assertEquals("c", cache.get("c").getTitle());
+    }
+
+    @Test
+    public void forgetsWhatsTooOldInMemory() throws InterruptedException {
+        TieredArticleCache cache = new TieredArticleCache(10, 20);
+        cache.put("a", article("a"));
+        assertEquals("a", cache.get("a").getTitle());
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void readsBackWhatAnotherInstanceWrote() throws IOException {
+        File directory = folder.newFolder();
+        new TieredArticleCache(10, 0, directory, 0).put("a", article("a"));
+
+        TieredArticleCache cache = new TieredArticleCache(10, 0, directory, 0);
+        assertEquals("a", cache.get("a").getTitle());
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void forgetsWhatsTooOldOnDisk() throws IOException {
+        File directory = folder.newFolder();
+        new TieredArticleCache(10, 0, directory, 0).put("a", article("a"));
+        new TieredArticleCache(10, 0, directory, 0).put("b", article("b"));
+        File file = new File(directory, "a.article");
+        setStoredAt(file, System.currentTimeMillis() - 2 * MINUTE);
+
+        TieredArticleCache cache = new TieredArticleCache(10, MINUTE, directory, 0);
+        assertNull(cache.get("a"));
+        assertFalse(file.exists());
+        assertEquals("b", cache.get("b").getTitle());
+    }
+
+    @Test
+    public void marksTheFilesItReadsAsUsed() throws IOException {
+        File directory = folder.newFolder();
+        new TieredArticleCache(10, 0, directory, 0).put("a", article("a"));
+        File file = new File(directory, "a.article");
+        long old = System.currentTimeMillis() - 10 * MINUTE;
+        assertTrue(file.setLastModified(old));
+
+        new TieredArticleCache(10, 0, directory, 0).get("a");
+        assertTrue(file.lastModified() > old + MINUTE);
+    }
+
+    @Test
+    public void staysUnderItsByteLimitByDroppingTheLeastRecentlyUsedFiles() throws IOException {
+        File directory = folder.newFolder();
+        TieredArticleCache writer = new TieredArticleCache(10, 0, directory, 0);
+        for (String key : new String[] {"a", "b", "c"}) {
+            writer.put(key, article(key));
+        }
+        long fileBytes = new File(directory, "a.article").length();
+        long now = System.currentTimeMillis();
+        assertTrue(new File(directory, "a.article").setLastModified(now - 30 * MINUTE));
+        assertTrue(new File(directory, "b.article").setLastModified(now - 20 * MINUTE));
+        assertTrue(new File(directory, "c.article").setLastModified(now - 10 * MINUTE));
+
+        // one article in memory, so the reads go to the disk
+        long maxDiskBytes = fileBytes * 3 + fileBytes / 2;
+        TieredArticleCache cache = new TieredArticleCache(1, 0, directory, maxDiskBytes);
+        assertEquals("a", cache.get("a").getTitle());
+        cache.put("d", article("d"));
+
+        assertTrue(new File(directory, "a.article").exists());
+        assertFalse(new File(directory, "b.article").exists());
+        assertTrue(new File(directory, "c.article").exists());
+        assertTrue(new File(directory, "d.article").exists());
+        assertTrue(sizeOf(directory) <= maxDiskBytes);
+
+        cache.put("e", article("e"));
+        assertFalse(new File(directory, "c.article").exists());
+        assertTrue(sizeOf(directory) <= maxDiskBytes);
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        assertEquals("a", cache.get("a").getTitle());
+    }
+
+    @Test
+    public void dropsBrokenFiles() throws IOException {
+        File directory = folder.newFolder();
+        new TieredArticleCache(10, 0, directory, 0).put("a", article("a"));
+        File file = new File(directory, "a.article");
+        RandomAccessFile broken = new RandomAccessFile(file, "rw");
+        try {
+            broken.setLength(4);
+        } finally {
+            broken.close();
+        }
+
+        assertNull(new TieredArticleCache(10, 0, directory, 0).get("a"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void checksItsArguments() throws IOException {
+        try {
+            new TieredArticleCache(0, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new TieredArticleCache(1, -1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new TieredArticleCache(1, 0, folder.newFile(), 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static Article article(String title) {
+        Article article = new Article();
+        article.setTitle(title);
+        article.setCleanedArticleText("The text of the article, the same length for all of them.");
+        return article;
+    }
+
+    /**
+     * Every file starts with the time it was stored
+     */
+    private static void setStoredAt(File file, long storedAt) throws IOException {
+        RandomAccessFile data = new RandomAccessFile(file, "rw");
+        try {
+            data.writeLong(storedAt);
+        } finally {
+            data.close();
+        }
+    }
+
+    private static long sizeOf(File directory) {
+        long size = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+}
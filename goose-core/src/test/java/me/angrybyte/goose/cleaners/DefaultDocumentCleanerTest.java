@@ -0,0 +1,91 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.cleaners;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DefaultDocumentCleanerTest {
+
+    @Test
+    public void turnsTextOnlyDivsAndSpansIntoParagraphs() {
+        assertEquals("<p>plain text only</p>", clean("<div>plain text only</div>"));
+        assertEquals("<p>inline <b>span</b></p>", clean("<span>inline <b>span</b></span>"));
+    }
+
+    /**
+     * Block elements inside links used to be pulled out of the gathered paragraph, because it was serialized and parsed again. Now the
+     * nodes are moved as they are, so the block stays inside its link.
+     */
+    @Test
+    public void keepsLinkWrappedBlocksInsideTheParagraph() {
+        assertEquals("<div><p><a><h2></h2></a>w x</p><a><h2></h2></a></div>", clean("<div><a><h2></h2></a>w x</div>"));
+        assertEquals("<div><p><a href=\"/x\"><h2>Title</h2></a>Some text here</p><a href=\"/x\"><h2>Title</h2></a></div>",
+                clean("<div><a href=\"/x\"><h2>Title</h2></a>Some text here</div>"));
+        assertEquals("<div><p><a href=\"/x\">link</a> text <a href=\"/y\"><div>block</div></a> tail</p><a href=\"/x\">link</a>"
+                        + "<a href=\"/y\"><p>block</p></a></div>",
+                clean("<div><a href=\"/x\">link</a> text <a href=\"/y\"><div>block</div></a> tail</div>"));
+    }
+
+    @Test
+    public void removesNaughtyNodesOnlyWithinTheBody() {
+        Document doc = Jsoup.parse("<html><head><title id=\"footer\">Title</title><meta id=\"caption\" name=\"x\"><style>.a{}</style>"
+                + "<script>s()</script></head><body><p>x</p></body></html>");
+        doc.outputSettings().prettyPrint(false);
+        new DefaultDocumentCleaner().clean(doc);
+        assertEquals("<html><head><title id=\"footer\">Title</title></head><body><p>x</p></body></html>", doc.html());
+    }
+
+    /**
+     * The rules used to run one after the other over the whole document, the single walk has to end up with the same thing when a node that
+     * one rule removes has nodes inside it that an earlier or a later rule would have removed or flattened
+     */
+    @Test
+    public void removesNodesThatHoldNodesOfOtherRules() {
+        assertEquals("<p>kept em text</p>",
+                clean("<div class=\"navbar\"><p><em>flattened first</em> then <span class=\"dropcap\">D</span>ropped</p></div>"
+                        + "<p>kept <em>em</em> text</p>"));
+        assertEquals("<p>body text</p>",
+                clean("<div id=\"caption\"><script>var a = 1;</script><p>caption text</p></div><p>body <script>var b;</script>text</p>"));
+        assertEquals("<p>text</p>",
+                clean("<div name=\"comments\"><div class=\"dropcap\">not a span</div><style>p {}</style></div>"
+                        + "<div><span name=\"footer\">named</span>text</div>"));
+        assertEquals("<div class=\"article\"><p></p><p>content stays</p></div>",
+                clean("<div class=\"article\"><div class=\" google \"><p>google</p></div><div class=\"more-links\"><p>more</p></div>"
+                        + "<div id=\"tweets twitter\"><p>tw</p></div><p>content stays</p></div>"));
+    }
+
+    @Test
+    public void flattensEmsAndDropCapsBeforeTheLaterRules() {
+        assertEquals("<p>The drop cap with an em inside</p>",
+                clean("<p><span class=\"dropcap\">T<em>he</em></span> drop cap with an em inside</p>"));
+        assertEquals("<p>outer inner text after</p>", clean("<p><em>outer <em>inner</em> text<script>x()</script></em> after</p>"));
+        // the drop cap takes the text of the naughty span before the naughty rule gets to it
+        assertEquals("Nested",
+                clean("<span class=\"dropcap\"><span class=\"navbar\">N</span>ested</span><div class=\"footer\"><em>gone</em>"
+                        + "<span class=\"drop_cap\">X</span></div>"));
+        // ems with images stay, unless their parent goes
+        assertEquals("<p><em><img src=\"b.png\">kept image em</em></p>",
+                clean("<p class=\"facebook-share x facebook\"><em><img src=\"a.png\">with image</em></p>"
+                        + "<p><em><img src=\"b.png\">kept image em</em></p>"));
+    }
+
+    private static String clean(String html) {
+        Document doc = Jsoup.parse(html);
+        doc.outputSettings().prettyPrint(false);
+        new DefaultDocumentCleaner().clean(doc);
+        return doc.body().html();
+    }
+
+}
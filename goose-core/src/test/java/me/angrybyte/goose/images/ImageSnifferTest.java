@@ -0,0 +1,325 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.images;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImageSnifferTest {
+
+    @Test
+    public void readsPng() throws IOException {
+        byte[] png = new Bytes().raw(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n').u32(13).ascii("IHDR").u32(640).u32(480).raw(8, 6, 0, 0, 0)
+                .toArray();
+        assertDetails(640, 480, "image/png", png);
+        assertNull(sniff(new Bytes().raw(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n').u32(13).ascii("IDAT").u32(640).u32(480).toArray()));
+    }
+
+    @Test
+    public void readsGif() throws IOException {
+        assertDetails(300, 200, "image/gif", new Bytes().ascii("GIF89a").u16le(300).u16le(200).raw(0, 0, 0, 0).toArray());
+        assertNull(sniff(new Bytes().ascii("GIF89a").u16le(0).u16le(200).raw(0, 0, 0, 0).toArray()));
+    }
+
+    @Test
+    public void readsJpegAfterTheMetadata() throws IOException {
+        byte[] jpeg = new Bytes().raw(0xFF, 0xD8)
+                .raw(0xFF, 0xE0).u16(16).ascii("JFIF").raw(0, 1, 1, 0, 0, 1, 0, 1, 0, 0)
+                // padding before a marker, and markers that have no length
+                .raw(0xFF, 0xFF, 0xFF, 0xD0)
+                // a huffman table is in the range of the frame headers but isn't one
+                .raw(0xFF, 0xC4).u16(4).raw(0, 0)
+                .raw(0xFF, 0xC2).u16(17).raw(8).u16(1080).u16(1920).raw(3, 1, 0x22, 0, 2, 0x11, 1, 3, 0x11, 1)
+                .toArray();
+        assertDetails(1920, 1080, "image/jpeg", jpeg);
+    }
+
+    @Test
+    public void givesUpOnJpegsWithoutAFrameHeader() throws IOException {
+        // the scan starts before there's a frame header
+        assertNull(sniff(new Bytes().raw(0xFF, 0xD8).raw(0xFF, 0xDA).u16(8).raw(0, 0, 0, 0, 0, 0).toArray()));
+        // garbage where a marker should be
+        assertNull(sniff(new Bytes().raw(0xFF, 0xD8).raw(0x12, 0x34).u16(8).raw(0, 0, 0, 0, 0, 0, 0, 0, 0, 0).toArray()));
+        // a segment length that can't be right
+        assertNull(sniff(new Bytes().raw(0xFF, 0xD8).raw(0xFF, 0xE1).u16(1).raw(0, 0, 0, 0, 0, 0, 0, 0).toArray()));
+    }
+
+    @Test
+    public void givesUpOnJpegMetadataBiggerThanTheLimit() throws IOException {
+        Bytes jpeg = new Bytes().raw(0xFF, 0xD8);
+        // two big APP1 segments push the frame header past what we're willing to read
+        for (int i = 0; i < 2; i++) {
+            jpeg.raw(0xFF, 0xE1).u16(0xFFFF).zeros(0xFFFF - 2);
+        }
+        jpeg.raw(0xFF, 0xC0).u16(17).raw(8).u16(100).u16(100).zeros(10);
+
+        CountingStream stream = new CountingStream(jpeg.toArray());
+        assertNull(ImageSniffer.sniff(stream));
+        assertTrue(stream.count <= ImageSniffer.MAX_HEADER_BYTES);
+    }
+
+    @Test
+    public void readsLossyWebp() throws IOException {
+        byte[] webp = new Bytes().ascii("RIFF").u32le(100).ascii("WEBP").ascii("VP8 ").u32le(80).raw(0x30, 0x01, 0x00, 0x9D, 0x01, 0x2A)
+                // the top two bits are the scale, not the size
+                .u16le(0xC000 | 800).u16le(600).zeros(4).toArray();
+        assertDetails(800, 600, "image/webp", webp);
+
+        byte[] wrongStartCode = webp.clone();
+        wrongStartCode[24] = 0;
+        assertNull(sniff(wrongStartCode));
+    }
+
+    @Test
+    public void readsLosslessWebp() throws IOException {
+        long bits = (1024 - 1) | (long) (768 - 1) << 14;
+        byte[] webp = new Bytes().ascii("RIFF").u32le(100).ascii("WEBP").ascii("VP8L").u32le(80).raw(0x2F).u32le(bits).zeros(4).toArray();
+        assertDetails(1024, 768, "image/webp", webp);
+
+        byte[] wrongSignature = webp.clone();
+        wrongSignature[20] = 0x2E;
+        assertNull(sniff(wrongSignature));
+    }
+
+    @Test
+    public void readsExtendedWebp() throws IOException {
+        byte[] webp = new Bytes().ascii("RIFF").u32le(100).ascii("WEBP").ascii("VP8X").u32le(10).raw(0x10, 0, 0, 0).u24le(5000 - 1)
+                .u24le(20000 - 1).zeros(4).toArray();
+        assertDetails(5000, 20000, "image/webp", webp);
+        assertNull(sniff(new Bytes().ascii("RIFF").u32le(100).ascii("WEBP").ascii("ALPH").u32le(10).zeros(14).toArray()));
+    }
+
+    @Test
+    public void readsAvifFromTheNestedBoxes() throws IOException {
+        assertDetails(1280, 720, "image/avif", avif("avif", 1280, 720));
+        // the brand can also be a compatible one
+        assertDetails(64, 32, "image/avif", avif("mif1", 64, 32));
+        // HEIC is stored the same way, but it's not something we know
+        byte[] heic = avif("heic", 64, 32);
+        replaceAll(heic, "avif", "heix");
+        assertNull(sniff(heic));
+    }
+
+    @Test
+    public void givesUpOnAvifWithoutASize() throws IOException {
+        byte[] noSize = avif("avif", 1280, 720);
+        replaceAll(noSize, "ispe", "pixi");
+        assertNull(sniff(noSize));
+
+        byte[] brokenBox = avif("avif", 1280, 720);
+        // the meta box says it's smaller than its own header
+        int meta = indexOf(brokenBox, "meta") - 4;
+        brokenBox[meta] = brokenBox[meta + 1] = brokenBox[meta + 2] = 0;
+        brokenBox[meta + 3] = 4;
+        assertNull(sniff(brokenBox));
+    }
+
+    @Test
+    public void givesUpOnTruncatedHeaders() throws IOException {
+        byte[] avif = avif("avif", 1280, 720);
+        byte[][] images = {
+                new Bytes().raw(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n').u32(13).ascii("IHDR").u32(640).u32(480).toArray(),
+                new Bytes().raw(0xFF, 0xD8).raw(0xFF, 0xC0).u16(17).raw(8).u16(100).u16(200).raw(3, 1, 0x22, 0, 2, 0x11, 1).toArray(),
+                new Bytes().ascii("RIFF").u32le(100).ascii("WEBP").ascii("VP8X").u32le(10).raw(0x10, 0, 0, 0).u24le(99).u24le(99).toArray(),
+                avif,
+        };
+        // where the last byte of the size is, everything after it is never read
+        int[] headerLengths = {24, 11, 30, indexOf(avif, "ispe") + 16};
+
+        for (int i = 0; i < images.length; i++) {
+            assertNotNull(sniff(images[i]));
+            assertNotNull(sniff(Arrays.copyOf(images[i], Math.max(headerLengths[i], 12))));
+            for (int length = 0; length < headerLengths[i]; length++) {
+                assertNull("cut at " + length, sniff(Arrays.copyOf(images[i], length)));
+            }
+        }
+    }
+
+    @Test
+    public void ignoresEverythingElse() throws IOException {
+        assertNull(sniff("<html><body>not an image</body></html>".getBytes("UTF-8")));
+        assertNull(sniff(new byte[0]));
+        assertNull(sniff(new Bytes().ascii("RIFF").u32le(100).ascii("WAVE").zeros(20).toArray()));
+    }
+
+    @Test
+    public void readsOnlyTheHeader() throws IOException {
+        Bytes png = new Bytes().raw(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n').u32(13).ascii("IHDR").u32(16).u32(16).zeros(10000);
+        CountingStream stream = new CountingStream(png.toArray());
+        assertNotNull(ImageSniffer.sniff(stream));
+        assertEquals(24, stream.count);
+    }
+
+    private static byte[] avif(String brand, int width, int height) {
+        Bytes ispe = new Bytes().u32(20).ascii("ispe").u32(0).u32(width).u32(height);
+        Bytes pixi = new Bytes().u32(16).ascii("pixi").u32(0).raw(3, 8, 8, 8);
+        Bytes ipco = new Bytes().u32(8 + pixi.size() + ispe.size()).ascii("ipco").append(pixi).append(ispe);
+        Bytes iprp = new Bytes().u32(8 + ipco.size()).ascii("iprp").append(ipco);
+        Bytes hdlr = new Bytes().u32(33).ascii("hdlr").u32(0).u32(0).ascii("pict").zeros(13);
+        Bytes meta = new Bytes().u32(12 + hdlr.size() + iprp.size()).ascii("meta").u32(0).append(hdlr).append(iprp);
+        Bytes ftyp = new Bytes().u32(24).ascii("ftyp").ascii(brand).u32(0).ascii("mif1").ascii("avif".equals(brand) ? "miaf" : "avif");
+        return ftyp.append(meta).append(new Bytes().u32(16).ascii("mdat").zeros(8)).toArray();
+    }
+
+    private static void assertDetails(int width, int height, String mimeType, byte[] image) throws IOException {
+        // the same answer whether the bytes come all at once or one at a time
+        for (InputStream stream : new InputStream[] {new ByteArrayInputStream(image), new TrickleStream(image)}) {
+            ImageDetails details = ImageSniffer.sniff(stream);
+            assertNotNull(details);
+            assertEquals(width, details.getWidth());
+            assertEquals(height, details.getHeight());
+            assertEquals(mimeType, details.getMimeType());
+        }
+    }
+
+    private static ImageDetails sniff(byte[] image) throws IOException {
+        return ImageSniffer.sniff(new ByteArrayInputStream(image));
+    }
+
+    private static int indexOf(byte[] bytes, String text) {
+        outer:
+        for (int i = 0; i + text.length() <= bytes.length; i++) {
+            for (int j = 0; j < text.length(); j++) {
+                if (bytes[i + j] != text.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void replaceAll(byte[] bytes, String text, String replacement) {
+        for (int i = indexOf(bytes, text); i >= 0; i = indexOf(bytes, text)) {
+            for (int j = 0; j < replacement.length(); j++) {
+                bytes[i + j] = (byte) replacement.charAt(j);
+            }
+        }
+    }
+
+    /**
+     * Builds the headers, big endian unless the name says otherwise
+     */
+    private static class Bytes {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Bytes raw(int... values) {
+            for (int value : values) {
+                out.write(value);
+            }
+            return this;
+        }
+
+        Bytes ascii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                out.write(text.charAt(i));
+            }
+            return this;
+        }
+
+        Bytes zeros(int count) {
+            out.write(new byte[count], 0, count);
+            return this;
+        }
+
+        Bytes u16(int value) {
+            return raw(value >> 8 & 0xFF, value & 0xFF);
+        }
+
+        Bytes u16le(int value) {
+            return raw(value & 0xFF, value >> 8 & 0xFF);
+        }
+
+        Bytes u24le(int value) {
+            return raw(value & 0xFF, value >> 8 & 0xFF, value >> 16 & 0xFF);
+        }
+
+        Bytes u32(long value) {
+            return raw((int) (value >> 24 & 0xFF), (int) (value >> 16 & 0xFF), (int) (value >> 8 & 0xFF), (int) (value & 0xFF));
+        }
+
+        Bytes u32le(long value) {
+            return raw((int) (value & 0xFF), (int) (value >> 8 & 0xFF), (int) (value >> 16 & 0xFF), (int) (value >> 24 & 0xFF));
+        }
+
+        Bytes append(Bytes other) {
+            byte[] bytes = other.toArray();
+            out.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        int size() {
+            return out.size();
+        }
+
+        byte[] toArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Hands out a single byte per read, like a slow connection would
+     */
+    private static class TrickleStream extends ByteArrayInputStream {
+
+        TrickleStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] bytes, int offset, int length) {
+            return super.read(bytes, offset, Math.min(length, 1));
+        }
+    }
+
+    /**
+     * Counts how much of the image was read
+     */
+    private static class CountingStream extends FilterInputStream {
+
+        int count;
+
+        CountingStream(byte[] bytes) {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HtmlBytesTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset UTF_16 = Charset.forName("UTF-16");
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+    private static final Charset WINDOWS_1251 = Charset.forName("windows-1251");
+
+    private static final String META_1251 = "<html><head><meta charset=\"windows-1251\"></head><body>x</body></html>";
+
+    @Test
+    public void theByteOrderMarkWinsOverEverything() {
+        byte[] utf8 = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, ascii(META_1251));
+        assertEquals(UTF_8, detect(utf8, "text/html; charset=ISO-8859-1"));
+        assertEquals(UTF_16, detect(concat(new byte[] {(byte) 0xFE, (byte) 0xFF}, ascii(META_1251)), "text/html; charset=ISO-8859-1"));
+        assertEquals(UTF_16, detect(concat(new byte[] {(byte) 0xFF, (byte) 0xFE}, ascii(META_1251)), null));
+    }
+
+    @Test
+    public void theHeaderWinsOverTheMetaTag() {
+        assertEquals(LATIN_1, detect(ascii(META_1251), "text/html; charset=ISO-8859-1"));
+        assertEquals(LATIN_1, detect(ascii(META_1251), "text/html;Charset=\"iso-8859-1\""));
+        // a charset the header names but nobody knows doesn't count
+        assertEquals(WINDOWS_1251, detect(ascii(META_1251), "text/html; charset=no-such-charset"));
+        assertEquals(WINDOWS_1251, detect(ascii(META_1251), "text/html"));
+        assertEquals(WINDOWS_1251, detect(ascii(META_1251), null));
+    }
+
+    @Test
+    public void readsTheMetaTagOnlyNearTheTop() {
+        assertEquals(LATIN_1, detect(ascii("<head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=iso-8859-1\">"), null));
+        assertEquals(UTF_8, detect(ascii("<head><meta name=\"charset\"><meta content='x'><p>charset=iso-8859-1</p>"), null));
+        // a page that came as bytes isn't UTF-16 whatever the tag says
+        assertEquals(UTF_8, detect(ascii("<head><meta charset=utf-16>"), null));
+
+        char[] padding = new char[1024];
+        Arrays.fill(padding, ' ');
+        assertEquals(UTF_8, detect(ascii("<head>" + new String(padding) + "<meta charset=\"windows-1251\">"), null));
+        assertEquals(UTF_8, detect(ascii("<p>no charset at all</p>"), null));
+    }
+
+    @Test
+    public void onlyLooksAtTheBytesThatWereRead() {
+        byte[] bytes = ascii(META_1251);
+        assertEquals(UTF_8, HtmlBytes.detectCharset(bytes, 20, null));
+        // two bytes of the UTF-8 mark aren't a mark
+        assertEquals(LATIN_1, HtmlBytes.detectCharset(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, 2, "text/html; charset=ISO-8859-1"));
+    }
+
+    @Test
+    public void decodesInTheCharsetItFound() throws IOException, MaxBytesException {
+        String text = "<html><head><meta charset=\"windows-1251\"></head><body>Привет</body></html>";
+        HtmlBytes html = HtmlBytes.read(new ByteArrayInputStream(text.getBytes(WINDOWS_1251)), null, 1000);
+        assertEquals(WINDOWS_1251, html.getCharset());
+        assertEquals(text, html.decode());
+        assertEquals(text.length(), html.length());
+    }
+
+    @Test
+    public void readsWhateverTheLengthHeaderSays() throws IOException, MaxBytesException {
+        byte[] bytes = ascii(page(100000));
+        for (int expected : new int[] {-1, 0, 10, bytes.length, bytes.length * 3}) {
+            HtmlBytes html = HtmlBytes.read(new ChunkStream(bytes, 4096), null, bytes.length, expected);
+            assertEquals(bytes.length, html.length());
+            assertEquals(page(100000), html.decode());
+        }
+    }
+
+    @Test
+    public void throwsOnlyForTheBytesThatAreThere() throws IOException, MaxBytesException {
+        byte[] bytes = ascii(page(5000));
+        // a header that says the page is short doesn't keep the rest of it from counting
+        assertTooBig(bytes, bytes.length - 1, 10);
+        assertTooBig(bytes, bytes.length - 1, -1);
+        // and one that says it's too long doesn't make it too long
+        assertEquals(bytes.length, HtmlBytes.read(new ChunkStream(bytes, 7), null, bytes.length, bytes.length * 10).length());
+        assertEquals(bytes.length, HtmlBytes.read(new ByteArrayInputStream(bytes), null, bytes.length).length());
+    }
+
+    @Test
+    public void readsTheHeadUntilItsOver() throws IOException, MaxBytesException {
+        String head = "<html><head><title>T</title><header></header><bodyguard></bodyguard>";
+        byte[] bytes = ascii(head + "</HEAD><body>" + page(100000) + "</body></html>");
+        for (int chunk : new int[] {1, 3, 7, 4096}) {
+            ChunkStream stream = new ChunkStream(bytes, chunk);
+            HtmlBytes html = HtmlBytes.readHead(stream, null, bytes.length);
+            assertEquals(head, html.decode());
+            // the rest of the page is left alone, apart from what came with the read that found the end
+            assertTrue(chunk + ": " + stream.position(), stream.position() < head.length() + 7 + chunk);
+        }
+
+        byte[] noHead = ascii("<meta charset=\"windows-1251\"><title>T</title>\n<BODY class=\"x\"><p>text</p>");
+        HtmlBytes html = HtmlBytes.readHead(new ChunkStream(noHead, 5), null, 1000);
+        assertEquals("<meta charset=\"windows-1251\"><title>T</title>\n", html.decode());
+        assertEquals(WINDOWS_1251, html.getCharset());
+
+        byte[] fragment = ascii("<title>T</title><p>no end to the head</p>");
+        assertEquals(fragment.length, HtmlBytes.readHead(new ChunkStream(fragment, 2), null, fragment.length).length());
+    }
+
+    @Test
+    public void throwsIfTheHeadIsntOverInTime() throws IOException, MaxBytesException {
+        byte[] bytes = ascii("<head><title>" + page(30000) + "</title></head><body></body>");
+        try {
+            HtmlBytes.readHead(new ChunkStream(bytes, 4096), null, 20000);
+            fail();
+        } catch (MaxBytesException expected) {
+        }
+        byte[] shortHead = ascii("<head></head>" + page(30000));
+        assertEquals(6, HtmlBytes.readHead(new ChunkStream(shortHead, 4096), null, 20).length());
+    }
+
+    private static Charset detect(byte[] bytes, String contentType) {
+        return HtmlBytes.detectCharset(bytes, bytes.length, contentType);
+    }
+
+    private static void assertTooBig(byte[] bytes, int maxBytes, int expectedLength) throws IOException {
+        try {
+            HtmlBytes.read(new ChunkStream(bytes, 100), null, maxBytes, expectedLength);
+            fail();
+        } catch (MaxBytesException expected) {
+        }
+    }
+
+    private static String page(int length) {
+        StringBuilder page = new StringBuilder(length);
+        while (page.length() < length) {
+            page.append("<p>some text ").append(page.length()).append("</p>");
+        }
+        page.setLength(length);
+        return page.toString();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(LATIN_1);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        ByteArrayOutputStream both = new ByteArrayOutputStream();
+        both.write(first, 0, first.length);
+        both.write(second, 0, second.length);
+        return both.toByteArray();
+    }
+
+    /**
+     * Gives out at most so many bytes on every read, like a slow connection does
+     */
+    private static class ChunkStream extends ByteArrayInputStream {
+
+        private final int chunk;
+
+        ChunkStream(byte[] bytes, int chunk) {
+            super(bytes);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public synchronized int read(byte[] bytes, int offset, int length) {
+            return super.read(bytes, offset, Math.min(length, chunk));
+        }
+
+        int position() {
+            return pos;
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.rules;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RulePackTest {
+
+    /**
+     * the names that BestImageGuesser used to look for before the rule packs, they're in global.rules now
+     */
+    private static final String[] KNOWN_IDS = {
+            "yn-story-related-media", "cnn_strylccimg300cntr", "big_photo"
+    };
+
+    @Test
+    public void parsesEveryActionAndSkipsCommentsAndBlankLines() throws IOException {
+        RulePack pack = parse("# a comment\n\n  remove .share-bar  \nUNWRAP span\n\timage #lead .lead\ncontent .body\n");
+        assertEquals(4, pack.size());
+        assertTrue(pack.hasCleaningRules());
+
+        Document doc = Jsoup.parse("<div class=\"Share-Bar\"></div><span></span><p id=\"lead\"><img src=\"a.jpg\"></p>"
+                + "<div class=\"body\"></div>");
+        assertEquals(RuleAction.REMOVE, pack.getCleaningAction(doc.select("div").first()));
+        assertEquals(RuleAction.UNWRAP, pack.getCleaningAction(doc.select("span").first()));
+        assertNull(pack.getCleaningAction(doc.select("p").first()));
+        assertEquals("a.jpg", pack.findKnownImage(doc).attr("src"));
+        assertSame(doc.select("div.body").first(), pack.findKnownContent(doc));
+    }
+
+    @Test
+    public void givesTheSamePackForNothingButComments() throws IOException {
+        assertSame(RulePack.EMPTY, parse("# nothing\n\n"));
+        assertFalse(RulePack.EMPTY.hasCleaningRules());
+    }
+
+    @Test
+    public void tellsWhichLineIsBroken() throws IOException {
+        assertBroken("remove .a\nremove\n", "Line 2 is not an action and a selector: remove");
+        assertBroken("# one\nhide .a\n", "Line 2 has an unknown action: hide");
+        assertBroken("remove .a\n\nremove #\n", "Line 3 has no name in its selector: remove #");
+        assertBroken("image #a .\n", "Line 1 has no name in its selector: image #a .");
+        assertBroken("remove div>p\n", "Line 1 has a bad tag name: div>p");
+    }
+
+    @Test
+    public void removingWinsOverUnwrapping() throws IOException {
+        Element element = Jsoup.parse("<div id=\"a\" class=\"b c\"></div>").select("div").first();
+        assertEquals(RuleAction.REMOVE, parse("unwrap #a\nremove .c\nunwrap div\n").getCleaningAction(element));
+        assertEquals(RuleAction.UNWRAP, parse("unwrap .B\n").getCleaningAction(element));
+    }
+
+    @Test
+    public void looksForTheOtherSelectorsOnlyWhenTheFirstFindsNothing() throws IOException {
+        RulePack pack = parse("image #lead .lead\n");
+        // the element with the id has no image, so there's no known image even though an element with the class has one
+        assertNull(pack.findKnownImage(Jsoup.parse("<div class=\"lead\"><img src=\"class.jpg\"></div><div id=\"lead\"></div>")));
+        assertEquals("class.jpg", pack.findKnownImage(Jsoup.parse("<div class=\"lead\"><img src=\"class.jpg\"></div>")).attr("src"));
+        assertEquals("id.jpg", pack.findKnownImage(Jsoup.parse("<div class=\"lead\"><img src=\"class.jpg\"></div>"
+                + "<div id=\"lead\"><img src=\"id.jpg\"></div>")).attr("src"));
+    }
+
+    @Test
+    public void findsTheKnownImageTheOldWay() throws IOException {
+        RulePack pack = new RulePacks().forUrl("http://www.example.com/story");
+        String[] pages = {
+                "<p>nothing known here</p><img src=\"other.jpg\">",
+                "<div id=\"big_photo\"><img src=\"id.jpg\"></div>",
+                "<div class=\"big_photo\"><img src=\"class.jpg\"></div>",
+                "<div class=\"big_photo\"><img src=\"class.jpg\"></div><div id=\"big_photo\"><p>no image</p></div>",
+                "<div class=\"big_photo\"><img src=\"class.jpg\"></div><div id=\"big_photo\"><img src=\"id.jpg\"></div>",
+                "<div class=\"x BIG_PHOTO\"><img src=\"upper.jpg\"></div>",
+                "<div class=\"big_photo\"></div><div class=\"big_photo\"><img src=\"second.jpg\"></div>",
+                "<div id=\"big_photo\"><img src=\"first.jpg\"></div><div id=\"big_photo\"><img src=\"second.jpg\"></div>",
+                "<div id=\"big_photo\"><img src=\"photo.jpg\"></div><div id=\"yn-story-related-media\"><img src=\"yahoo.jpg\"></div>",
+                "<div id=\"cnn_strylccimg300cntr\"><img src=\"cnn.jpg\"></div><div class=\"yn-story-related-media\"><img src=\"y.jpg\"></div>",
+                "<div id=\"cnn_strylccimg300cntr\"><img src=\"cnn.jpg\"></div><div class=\"big_photo\"><p>no image</p></div>",
+                "<div id=\"yn-story-related-media\"><div><img src=\"deep.jpg\"></div><img src=\"shallow.jpg\"></div>",
+        };
+        for (String page : pages) {
+            Document doc = Jsoup.parse(page);
+            Element expected = checkForKnownElements(doc);
+            Element found = pack.findKnownImage(doc);
+            assertSame(page, expected, found);
+        }
+    }
+
+    @Test
+    public void theLastContentRuleThatFindsSomethingWins() throws IOException {
+        RulePack pack = parse("content .story\ncontent #main article\ncontent .missing\n");
+        Document doc = Jsoup.parse("<div class=\"story\">a</div><div class=\"story\">b</div><article>c</article><div id=\"main\">d</div>");
+        assertSame(doc.getElementById("main"), pack.findKnownContent(doc));
+
+        doc = Jsoup.parse("<div class=\"story\">a</div><div class=\"story\">b</div><article>c</article>");
+        assertEquals("c", pack.findKnownContent(doc).text());
+
+        doc = Jsoup.parse("<div class=\"story\">a</div><div class=\"story\">b</div>");
+        assertEquals("a", pack.findKnownContent(doc).text());
+
+        assertNull(pack.findKnownContent(Jsoup.parse("<p>nothing</p>")));
+        assertNull(parse("image .story\n").findKnownContent(doc));
+    }
+
+    @Test
+    public void findsAClassAmongManyWhateverTheSpacing() throws IOException {
+        StringBuilder rules = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            rules.append("content .c").append(i).append('\n');
+        }
+        RulePack pack = parse(rules.toString());
+        Document doc = Jsoup.parse("<div class=\"\t a  C57\nb \">x</div>");
+        assertSame(doc.select("div").first(), pack.findKnownContent(doc));
+        assertNull(pack.findKnownContent(Jsoup.parse("<div class=\"c100 c5x\">x</div>")));
+    }
+
+    @Test
+    public void mergesTheParentDomainsAfterTheGlobalPack() throws IOException {
+        Source source = new Source();
+        source.packs.put(RulePacks.GLOBAL, "content .global\nremove .global-ad\n");
+        source.packs.put("example.com", "content .domain\n");
+        source.packs.put("news.example.com", "content .host\n");
+        source.packs.put("com", "remove p\n");
+        RulePacks packs = new RulePacks(source, 10);
+
+        Document doc = Jsoup.parse("<div class=\"host\">h</div><div class=\"domain\">d</div><div class=\"global\">g</div>");
+        RulePack pack = packs.forUrl("http://News.Example.com/a/story.html");
+        assertEquals("h", pack.findKnownContent(doc).text());
+        assertEquals(RuleAction.REMOVE, pack.getCleaningAction(Jsoup.parse("<div class=\"global-ad\">").select("div").first()));
+        // the top level domain on its own is never read
+        assertNull(pack.getCleaningAction(doc.select("div").first()));
+        assertFalse(source.opened.contains("com"));
+
+        assertEquals("d", packs.forUrl("http://www.example.com/").findKnownContent(doc).text());
+        assertEquals("g", packs.forUrl("http://example.org/").findKnownContent(doc).text());
+        assertEquals("g", packs.forUrl("not a url").findKnownContent(doc).text());
+        assertEquals("g", packs.forHost("").findKnownContent(doc).text());
+    }
+
+    @Test
+    public void readsEachPackOnceAndLeavesBrokenOnesOut() throws IOException {
+        Source source = new Source();
+        source.packs.put(RulePacks.GLOBAL, "content .global\n");
+        source.packs.put("broken.com", "content .fine\ncontent\n");
+        RulePacks packs = new RulePacks(source, 1);
+
+        Document doc = Jsoup.parse("<div class=\"fine\">f</div><div class=\"global\">g</div>");
+        assertEquals("g", packs.forUrl("http://broken.com/").findKnownContent(doc).text());
+        assertSame(packs.forUrl("http://broken.com/"), packs.forUrl("http://BROKEN.com/other"));
+        assertEquals(1, count(source.opened, "broken.com"));
+
+        // only one host is kept, so the other one pushes it out
+        packs.forUrl("http://other.com/");
+        packs.forUrl("http://broken.com/");
+        assertEquals(2, count(source.opened, "broken.com"));
+        assertEquals(1, count(source.opened, RulePacks.GLOBAL));
+    }
+
+    @Test
+    public void checksItsArguments() {
+        try {
+            new RulePacks(null, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new RulePacks(new Source(), 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * How BestImageGuesser found the known image before the rule packs
+     */
+    private static Element checkForKnownElements(Document doc) {
+        Element knownImage = null;
+        for (String knownName : KNOWN_IDS) {
+            Element known = doc.getElementById(knownName);
+
+            if (known == null) {
+                known = doc.getElementsByClass(knownName).first();
+            }
+
+            if (known != null) {
+                Element mainImage = known.getElementsByTag("img").first();
+                if (mainImage != null) {
+                    knownImage = mainImage;
+                }
+            }
+        }
+        return knownImage;
+    }
+
+    private static RulePack parse(String text) throws IOException {
+        return RulePack.parse(new StringReader(text));
+    }
+
+    private static void assertBroken(String text, String message) throws IOException {
+        try {
+            parse(text);
+            fail(text);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static int count(List<String> names, String name) {
+        int count = 0;
+        for (String each : names) {
+            if (each.equals(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class Source implements RuleSource {
+
+        final HashMap<String, String> packs = new HashMap<>();
+        final List<String> opened = new ArrayList<>();
+
+        @Override
+        public InputStream open(String name) {
+            opened.add(name);
+            String pack = packs.get(name);
+            return pack == null ? null : new ByteArrayInputStream(pack.getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+}
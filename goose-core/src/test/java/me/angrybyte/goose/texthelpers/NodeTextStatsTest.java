@@ -0,0 +1,121 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package me.angrybyte.goose.texthelpers;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the stats against the jSoup calls and the splitting they replaced, for every element of a small corpus of awkward pages
+ */
+public class NodeTextStatsTest {
+
+    private static final StringSplitter SPACE_SPLITTER = new StringSplitter(" ");
+
+    private static final String[] PAGES = {
+            "<div><p>Plain paragraph with a <a href=\"/a\">link</a> in it.</p><p>Another one, with <a href=\"/b\">two words</a>.</p></div>",
+            "<div>   leading whitespace\n\t and  runs   of   it   </div><div>\n\n<p>  after a newline</p>  </div>",
+            "<pre>  keep   the\n  spaces  <b>and  bold</b>\n</pre><div>after <pre>  indented\n\tcode  </pre> text</div>",
+            "<pre><code>  nested   code\n    lines  </code></pre><p><code>inline   code</code></p>",
+            "<p>first line<br>second line<br><br>  third line</p><div><br>starts with a break</div><p>ends with a break<br></p>",
+            "<p>Emoji 😀 and math 𝒳 letters</p><div><a href=\"/e\">😀😀</a> 𝒳 😀</div>",
+            "<div><a href=\"/1\"><img src=\"a.png\"></a><a href=\"/2\"><img src=\"b.png\"></a></div><div><a href=\"/3\"></a></div>",
+            "<div><a href=\"/x\">   spaced   link   </a><a href=\"/y\">glued</a><a href=\"/z\">links</a> and text</div>",
+            "<ul><li><a href=\"/1\">One</a></li><li><a href=\"/2\">Two</a></li><li><a href=\"/3\">Three words here</a></li></ul>",
+            "<div>non breaking spaces and <span>inline</span><span>spans</span> <div>block</div>tail</div>",
+            "<table><tr><td>cell one</td><td>cell <a href=\"/t\">two</a></td></tr></table><div></div><p> </p>",
+            "<div><textarea>  raw   text  </textarea><div><span>   </span></div><p>x<a href=\"/q\">y</a>z</p></div>",
+    };
+
+    @Test
+    public void matchesTheJsoupText() {
+        for (String html : PAGES) {
+            Document doc = Jsoup.parse(html);
+            NodeTextStats stats = NodeTextStats.compute(doc);
+            for (Element element : doc.getAllElements()) {
+                assertEquals(describe(element), element.text(), stats.getText(element));
+                assertEquals(describe(element), element.text().length(), stats.getTextLength(element));
+            }
+        }
+    }
+
+    @Test
+    public void matchesTheSplitWordCounts() {
+        for (String html : PAGES) {
+            Document doc = Jsoup.parse(html);
+            NodeTextStats stats = NodeTextStats.compute(doc);
+            for (Element element : doc.getAllElements()) {
+                assertEquals(describe(element), wordCount(element), stats.getSpaceSeparatedWordCount(element));
+            }
+        }
+    }
+
+    @Test
+    public void matchesTheOldLinkDensity() {
+        for (String html : PAGES) {
+            Document doc = Jsoup.parse(html);
+            NodeTextStats stats = NodeTextStats.compute(doc);
+            for (Element element : doc.getAllElements()) {
+                assertEquals(describe(element), linkDensity(element), stats.getLinkDensity(element), 0f);
+                assertEquals(describe(element), linkDensity(element) > 1, stats.getLinkDensity(element) > 1);
+            }
+        }
+    }
+
+    @Test
+    public void measuresElementsOutsideTheRoot() {
+        for (String html : PAGES) {
+            Document doc = Jsoup.parse(html);
+            NodeTextStats stats = NodeTextStats.compute(doc.head());
+            for (Element element : doc.body().getAllElements()) {
+                assertEquals(describe(element), element.text(), stats.getText(element));
+                assertEquals(describe(element), wordCount(element), stats.getSpaceSeparatedWordCount(element));
+                assertEquals(describe(element), linkDensity(element), stats.getLinkDensity(element), 0f);
+            }
+        }
+    }
+
+    /**
+     * How the word count used to be done: split the trimmed text on single spaces
+     */
+    private static int wordCount(Element element) {
+        return SPACE_SPLITTER.split(element.text().trim()).length;
+    }
+
+    /**
+     * How the link density used to be done: the number of links, times the words of all link texts glued together over the words of the text
+     */
+    private static float linkDensity(Element element) {
+        Elements links = element.getElementsByTag("a");
+        if (links.size() == 0) {
+            return 0;
+        }
+
+        StringBuilder linkText = new StringBuilder();
+        for (Element link : links) {
+            linkText.append(link.text());
+        }
+
+        float numberOfWords = wordCount(element);
+        float numberOfLinkWords = SPACE_SPLITTER.split(linkText.toString()).length;
+        return numberOfLinkWords / numberOfWords * links.size();
+    }
+
+    private static String describe(Element element) {
+        return element.cssSelector() + " in " + element.ownerDocument().body().html();
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The saved pages all the benchmarks run over, listed in <code>corpus/pages.txt</code> on the classpath
+ */
+public final class Corpus {
+
+    private static final String DIRECTORY = "corpus/";
+
+    private Corpus() {}
+
+    /**
+     * @return the html of every page in the corpus
+     */
+    public static List<String> loadPages() throws IOException {
+        List<String> pages = new ArrayList<>();
+        for (String name : read(DIRECTORY + "pages.txt").split("\\n")) {
+            if (name.trim().length() > 0) {
+                pages.add(read(DIRECTORY + name.trim()));
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * @return a made up url for the page, the extractor needs one to resolve links and images
+     */
+    public static String urlOf(int page) {
+        return "http://www.example.com/news/" + page;
+    }
+
+    /**
+     * Extraction settings for the benchmarks, image fetching would make them measure the network
+     */
+    public static Configuration configuration() {
+        Configuration config = new Configuration(System.getProperty("java.io.tmpdir"));
+        config.setEnableImageFetching(false);
+        return config;
+    }
+
+    private static String read(String resource) throws IOException {
+        InputStream stream = Corpus.class.getClassLoader().getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException("Missing corpus file " + resource);
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            stream.close();
+        }
+    }
+
+}
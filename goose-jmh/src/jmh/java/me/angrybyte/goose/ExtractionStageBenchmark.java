@@ -0,0 +1,160 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose;
+
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import me.angrybyte.goose.cleaners.DefaultDocumentCleaner;
+import me.angrybyte.goose.outputformatters.DefaultOutputFormatter;
+
+/**
+ * Times each stage of the extraction on its own, one operation being a pass over the whole corpus. The stages that change the document get
+ * a fresh copy of it before every operation, prepared by running the stages before them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionStageBenchmark {
+
+    @Benchmark
+    public void parse(Pages pages, Blackhole blackhole) {
+        for (int i = 0; i < pages.html.size(); i++) {
+            blackhole.consume(new ParseWrapper().parse(pages.html.get(i), Corpus.urlOf(i)));
+        }
+    }
+
+    @Benchmark
+    public void clean(ParsedDocuments documents, Blackhole blackhole) {
+        for (Document document : documents.copies) {
+            blackhole.consume(documents.cleaner.clean(document));
+        }
+    }
+
+    @Benchmark
+    public void cluster(CleanedContexts contexts, Blackhole blackhole) {
+        for (ExtractionContext context : contexts.contexts) {
+            contexts.extractor.cluster(context);
+            blackhole.consume(context.getArticle().getTopNode());
+        }
+    }
+
+    @Benchmark
+    public void format(CleanedUpContexts contexts, Blackhole blackhole) {
+        for (ExtractionContext context : contexts.contexts) {
+            Article article = context.getArticle();
+            if (article.getTopNode() != null) {
+                blackhole.consume(new DefaultOutputFormatter().getFormattedText(article.getTopNode(), context.getScores()));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pages {
+
+        List<String> html;
+
+        @Setup
+        public void load() throws IOException {
+            html = Corpus.loadPages();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ParsedDocuments {
+
+        final DefaultDocumentCleaner cleaner = new DefaultDocumentCleaner();
+        final List<Document> documents = new ArrayList<>();
+        final List<Document> copies = new ArrayList<>();
+
+        @Setup
+        public void parse(Pages pages) {
+            for (int i = 0; i < pages.html.size(); i++) {
+                documents.add(new ParseWrapper().parse(pages.html.get(i), Corpus.urlOf(i)));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            // the cleaner removes nodes, so every run gets untouched documents
+            copies.clear();
+            for (Document document : documents) {
+                copies.add(document.clone());
+            }
+        }
+    }
+
+    /**
+     * Contexts that went through every stage before the one being measured
+     */
+    @State(Scope.Thread)
+    public abstract static class PreparedContexts {
+
+        final ContentExtractor extractor = new ContentExtractor(Corpus.configuration());
+        final List<ExtractionContext> contexts = new ArrayList<>();
+
+        private final ExtractionStage measured;
+
+        PreparedContexts(ExtractionStage measured) {
+            this.measured = measured;
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare(Pages pages) {
+            // scores add up and the top node gets trimmed, so every run starts over from the html
+            contexts.clear();
+            for (int i = 0; i < pages.html.size(); i++) {
+                ExtractionContext context = extractor.createContext(Corpus.urlOf(i), pages.html.get(i), false);
+                for (ExtractionStage stage : ExtractionStage.values()) {
+                    if (stage == measured) {
+                        break;
+                    }
+                    extractor.runStage(stage, context);
+                }
+                contexts.add(context);
+            }
+        }
+    }
+
+    public static class CleanedContexts extends PreparedContexts {
+
+        public CleanedContexts() {
+            super(ExtractionStage.CLUSTER);
+        }
+    }
+
+    public static class CleanedUpContexts extends PreparedContexts {
+
+        public CleanedUpContexts() {
+            super(ExtractionStage.FORMAT);
+        }
+    }
+
+}
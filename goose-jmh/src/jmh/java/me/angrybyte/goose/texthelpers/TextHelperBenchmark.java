@@ -0,0 +1,98 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.texthelpers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import me.angrybyte.goose.Article;
+import me.angrybyte.goose.ContentExtractor;
+import me.angrybyte.goose.Corpus;
+import me.angrybyte.goose.outputformatters.Entities;
+
+/**
+ * Times the text helpers the extractor calls over and over, fed with the paragraphs of the corpus pages. One operation is a pass over all
+ * of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextHelperBenchmark {
+
+    private final StringSplitter spaceSplitter = new StringSplitter(" ");
+
+    private final List<String> paragraphs = new ArrayList<>();
+    private final List<String> escaped = new ArrayList<>();
+
+    @Setup
+    public void extract() throws IOException {
+        ContentExtractor extractor = new ContentExtractor(Corpus.configuration());
+        List<String> pages = Corpus.loadPages();
+        for (int i = 0; i < pages.size(); i++) {
+            Article article = extractor.extractContent(Corpus.urlOf(i), pages.get(i), false);
+            if (article == null || article.getCleanedArticleText() == null) {
+                continue;
+            }
+
+            for (String paragraph : article.getCleanedArticleText().split("\\n+")) {
+                paragraphs.add(paragraph);
+                escaped.add(Entities.HTML40.escape(paragraph));
+            }
+        }
+    }
+
+    @Benchmark
+    public void stopWordCount(Blackhole blackhole) {
+        for (String paragraph : paragraphs) {
+            blackhole.consume(StopWords.getStopWordCount(paragraph));
+        }
+    }
+
+    @Benchmark
+    public void split(Blackhole blackhole) {
+        for (String paragraph : paragraphs) {
+            blackhole.consume(spaceSplitter.split(paragraph));
+        }
+    }
+
+    @Benchmark
+    public void escape(Blackhole blackhole) {
+        for (String paragraph : paragraphs) {
+            blackhole.consume(Entities.HTML40.escape(paragraph));
+        }
+    }
+
+    @Benchmark
+    public void unescape(Blackhole blackhole) {
+        for (String paragraph : escaped) {
+            blackhole.consume(Entities.HTML40.unescape(paragraph));
+        }
+    }
+
+}
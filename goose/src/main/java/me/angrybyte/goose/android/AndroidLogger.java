@@ -0,0 +1,33 @@
+/**
+ * Licensed to Gravity.com under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.  Gravity.com licenses this file to you under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package me.angrybyte.goose.android;
+
+import android.util.Log;
+
+import me.angrybyte.goose.GooseLogger;
+
+/**
+ * Sends the library's log messages to logcat. Registered as a service, so {@link me.angrybyte.goose.GooseLog} picks it up on its own.
+ */
+public class AndroidLogger implements GooseLogger {
+
+    @Override
+    public void w(String tag, String message, Throwable error) {
+        Log.w(tag, message, error);
+    }
+
+    @Override
+    public void e(String tag, String message, Throwable error) {
+        Log.e(tag, message, error);
+    }
+
+}
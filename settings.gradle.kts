@@ -14,4 +14,4 @@
  * limitations under the License.
  */
 
-include("app", "goose")
\ No newline at end of file
+include("app", "goose-core", "goose", "goose-jmh")
\ No newline at end of file